@@ -0,0 +1,70 @@
+package supermarket.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import supermarket.domain.algorithm.MatrixKernels;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scalar and the vectorized kernels of MatrixKernels on whole matrices of the size of a shelf:
+ * an argmin of every row (as done by the greedy algorithm), the inversion of the relations and the check of negative values.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixKernelsBenchmark {
+    @Param({"scalar", "vector"})
+    public String kernels;
+
+    @Param({"64", "512", "2048"})
+    public int n;
+
+    private MatrixKernels selected;
+    private float[] values;
+    private float[] inverted;
+    private boolean[] visited;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        selected = kernels.equals("vector") ? MatrixKernels.vector() : MatrixKernels.scalar();
+        Random random = new Random(42);
+        values = new float[n * n];
+        for (int i = 0; i < values.length; ++i) values[i] = random.nextFloat();
+        inverted = new float[n * n];
+        visited = new boolean[n];
+        for (int i = 0; i < n; ++i) visited[i] = random.nextBoolean(); //half of a greedy order
+    }
+
+    @Benchmark
+    public void argMin(Blackhole blackhole) {
+        for (int row = 0; row < n; ++row) blackhole.consume(selected.argMin(values, row * n, visited));
+    }
+
+    @Benchmark
+    public float[] invert() {
+        System.arraycopy(values, 0, inverted, 0, values.length);
+        selected.invert(inverted, 0, inverted.length);
+        return inverted;
+    }
+
+    @Benchmark
+    public boolean anyNegative() {
+        return selected.anyNegative(values, 0, values.length);
+    }
+}
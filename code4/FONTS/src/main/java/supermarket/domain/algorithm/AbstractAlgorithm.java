@@ -3,6 +3,7 @@ package supermarket.domain.algorithm;
 import supermarket.tuples.AlgorithmParameter;
 import supermarket.tuples.AlgorithmType;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,16 +14,31 @@ import java.util.List;
  */
 public abstract class AbstractAlgorithm {
     final int n;
-    final float[][] distanceMatrix;
+    final DistanceMatrix distanceMatrix;
+    private final boolean square;
+    private NeighborLists neighborLists;
 
     /**
      * Constructor for AbstractAlgorithm.
-     * Initializes the algorithm with a given distance matrix.
+     * Initializes the algorithm with a copy of the given distance matrix (stored as a FlatDistanceMatrix).
+     * A matrix that is not square is accepted, but no algorithm can be used with it.
      * @param distanceMatrix The matrix representing the distances or costs between pairs of elements.
      */
     public AbstractAlgorithm(float[][] distanceMatrix) {
-        this.distanceMatrix = distanceMatrix;
         n = distanceMatrix.length;
+        square = FlatDistanceMatrix.isSquare(distanceMatrix);
+        this.distanceMatrix = square ? new FlatDistanceMatrix(distanceMatrix) : new FlatDistanceMatrix(n);
+    }
+
+    /**
+     * Constructor for AbstractAlgorithm.
+     * Initializes the algorithm with a given distance matrix (not copied, so it can be shared by several algorithms).
+     * @param distanceMatrix The matrix representing the distances or costs between pairs of elements.
+     */
+    AbstractAlgorithm(DistanceMatrix distanceMatrix) {
+        this.distanceMatrix = distanceMatrix;
+        n = distanceMatrix.size();
+        square = true;
     }
 
     /**
@@ -39,12 +55,38 @@ public abstract class AbstractAlgorithm {
     public float calculateCycleCost(int[] vertices) {
         float result = 0;
         for (int i = 1; i < vertices.length; ++i) {
-            result += distanceMatrix[vertices[i-1]][vertices[i]];
+            result += distanceMatrix.get(vertices[i-1], vertices[i]);
         }
-        result += distanceMatrix[vertices[vertices.length-1]][vertices[0]];
+        result += distanceMatrix.get(vertices[vertices.length-1], vertices[0]);
         return result;
     }
 
+    /**
+     * Returns the distance matrix used by the algorithm.
+     * @return The distance matrix (the one given to the algorithm, or its copy if it was given as a float[][]).
+     */
+    public DistanceMatrix getDistanceMatrix() {
+        return distanceMatrix;
+    }
+
+    /**
+     * Returns the lists of nearest neighbors of every element of the distance matrix.
+     * They are built the first time they are needed, and then shared by everything that uses this algorithm.
+     * @return Neighbor lists of the distance matrix, with the default number of neighbors.
+     */
+    public synchronized NeighborLists getNeighborLists() {
+        if (neighborLists == null) neighborLists = new NeighborLists(distanceMatrix);
+        return neighborLists;
+    }
+
+    /**
+     * Uses the given neighbor lists instead of building new ones (for helper algorithms with the same distance matrix).
+     * @param neighborLists Neighbor lists of the distance matrix of this algorithm.
+     */
+    synchronized void setNeighborLists(NeighborLists neighborLists) {
+        this.neighborLists = neighborLists;
+    }
+
     /**
      * Gives all available parameters for an algorithm (things that will change how the algorithm behaves)
      * For example, criteria for adapting Kruskal eulerian path output to a node order.
@@ -64,26 +106,98 @@ public abstract class AbstractAlgorithm {
 
     }
 
+    /**
+     * Removes the first parameter of the list and parses it as an integer (used by setParameters of the subclasses).
+     * @param parameters Remaining parameters (if it is empty, the parameter has not been given).
+     * @param paramName Name of the parameter, used for error messages.
+     * @param min Minimum valid value.
+     * @param max Maximum valid value.
+     * @param defaultValue Value used when the parameter is missing or invalid.
+     * @return The parsed value, or the default value.
+     */
+    protected static int parseIntParameter(List<String> parameters, String paramName, int min, int max, int defaultValue) {
+        if (parameters.isEmpty()) return defaultValue; //optional parameter
+        String param = parameters.removeFirst();
+        try {
+            int value = Integer.parseInt(param);
+            if (value >= min && value <= max) return value;
+            System.err.println("Received invalid value for " + paramName + ". Using default value instead.");
+        } catch (NumberFormatException e) {
+            System.err.println("Received non-numeric value for " + paramName + ". Using default value instead.");
+        }
+        return defaultValue;
+    }
+
     /**
      * Checks if the relationMatrix data is a valid input for the implemented algorithm.
      * @return If the implemented algorithm can be used with the given relationMatrix data.
      */
     public boolean canUseAlgorithm() {
         if (n <= 0) return false;
+        if (!square) return false; //not a n*n matrix
+        if (distanceMatrix instanceof FlatDistanceMatrix flat) {
+            return !MatrixKernels.SELECTED.anyNegative(flat.values(), 0, n * n); //negative values are invalid
+        }
+        if (distanceMatrix instanceof SymmetricDistanceMatrix symmetric) {
+            return !MatrixKernels.SELECTED.anyNegative(symmetric.values(), 0, symmetric.values().length);
+        }
         for (int i = 0; i < n; ++i) {
-            if (distanceMatrix[i].length != n) return false; //not a n*n matrix
             for (int j = 0; j < n; ++j) {
-                if (distanceMatrix[i][j] < 0) return false; //negative values are invalid
+                if (distanceMatrix.get(i, j) < 0) return false; //negative values are invalid
             }
         }
         return true;
     }
 
+    /**
+     * Checks if the algorithm can be used within the limits of the given control.
+     * Algorithms whose checks are costly stop them when the control asks to, and then the algorithm is considered unusable.
+     * @param control Limits of the check.
+     * @return If the implemented algorithm can be used with the given relationMatrix data.
+     */
+    boolean canUseAlgorithm(ExecutionControl control) {
+        return canUseAlgorithm();
+    }
+
+    /**
+     * Indicates if the distributions given by the algorithm are always optimal (so no other algorithm can improve them).
+     * @return If the implemented algorithm is exact.
+     */
+    public boolean isExact() {
+        return false;
+    }
+
     /**
      * Calculates a distribution using the relationMatrix that minimizes distance.
      * Distribution consists of an array of indices, which correspond to the positions of the relationMatrix.
      * @return Array of indices of size relationMatrix, circular path.
      */
     public abstract int[] calculateDistribution();
+
+    /**
+     * Calculates a distribution within a time budget.
+     * Algorithms with long searches (simulated annealing, greedy testing all starting nodes, Kruskal with best starting node
+     * and Lin-Kernighan) stop when the budget is over or the token is cancelled, and return the best distribution found so far.
+     * Other algorithms always run to completion.
+     * @param timeBudget Maximum duration of the calculation (null for no limit).
+     * @param cancellationToken Token that stops the calculation when cancelled (can be null).
+     * @param progressListener Listener that receives the best cost and the number of iterations while calculating (can be null).
+     * @return Array of indices of size relationMatrix, circular path.
+     */
+    public int[] calculateDistribution(Duration timeBudget, CancellationToken cancellationToken, ProgressListener progressListener) {
+        return calculateDistribution(new ExecutionControl(timeBudget, cancellationToken, progressListener));
+    }
+
+    /**
+     * Calculates a distribution respecting the limits of the given control (see calculateDistribution with a time budget).
+     * By default, the distribution is calculated without limits and its cost is reported at the end.
+     * @param control Limits and progress listener of the calculation.
+     * @return Array of indices of size relationMatrix, circular path.
+     */
+    public int[] calculateDistribution(ExecutionControl control) {
+        int[] result = calculateDistribution();
+        if (result.length > 0) control.report(calculateCycleCost(result), 1);
+        return result;
+    }
     
 }
@@ -0,0 +1,47 @@
+package supermarket.domain.algorithm;
+
+/**
+ * Metropolis acceptance test of simulated annealing (a worse solution is accepted with probability exp(-x),
+ * where x is the increase of cost divided by the temperature) without computing an exponential in almost all cases.
+ * <p>
+ * The test exp(-x) > u, with u uniform in [0, 1), is the same as x < -ln(u). The highest bits of u give the bin of
+ * the table where u is, and -ln(u) is between the values of the table at both ends of the bin: x is accepted when it
+ * is below the lower one and rejected when it is above the higher one. Only when x falls inside the bin
+ * (probability around 1 / TABLE_SIZE) the exact test is done, so the decisions are the same as with Math.exp.
+ */
+public final class AcceptanceTable {
+    private static final int TABLE_BITS = 12;
+    private static final int TABLE_SIZE = 1 << TABLE_BITS;
+    /** NEG_LOG[i] = -ln(i / TABLE_SIZE), decreasing from +infinity to 0. */
+    private static final double[] NEG_LOG = new double[TABLE_SIZE + 1];
+
+    static {
+        for (int i = 0; i <= TABLE_SIZE; ++i) NEG_LOG[i] = -Math.log((double) i / TABLE_SIZE);
+    }
+
+    private AcceptanceTable() {
+    }
+
+    /**
+     * Decides if a worse solution is accepted.
+     *
+     * @param x Increase of cost divided by the temperature (non-negative).
+     * @param randomBits 64 random bits (for example, nextLong() of the random generator of the chain).
+     *                   The uniform value u is given by its highest 53 bits, as in nextDouble().
+     * @return If exp(-x) > u.
+     */
+    public static boolean accept(double x, long randomBits) {
+        int bin = (int) (randomBits >>> (64 - TABLE_BITS)); //u in [bin, bin + 1) / TABLE_SIZE
+        if (x <= NEG_LOG[bin + 1]) return true; //-ln(u) > NEG_LOG[bin + 1] >= x
+        if (x > NEG_LOG[bin]) return false; //-ln(u) <= NEG_LOG[bin] < x
+        return Math.exp(-x) > uniform(randomBits);
+    }
+
+    /**
+     * @param randomBits 64 random bits.
+     * @return Uniform value in [0, 1) given by the highest 53 bits.
+     */
+    public static double uniform(long randomBits) {
+        return (randomBits >>> 11) * 0x1.0p-53;
+    }
+}
@@ -12,13 +12,25 @@ import java.util.List;
 public class AlgorithmFactory {
 
     /**
-     * Creates an algorithm of the specified type with the given distance matrix.
+     * Creates an algorithm of the specified type with a copy of the given distance matrix.
+     * A matrix that is not square is replaced by an empty one, so the algorithm can't be used.
      *
      * @param algorithmType  The type of algorithm to create.
      * @param distanceMatrix The matrix representing the distances or costs between pairs of elements.
      * @return An instance of the specified algorithm type.
      */
     public static AbstractAlgorithm createAlgorithm(AlgorithmType algorithmType, float[][] distanceMatrix) {
+        return createAlgorithmShared(algorithmType, copyOf(distanceMatrix));
+    }
+
+    /**
+     * Creates an algorithm of the specified type with the given distance matrix (shared, not copied).
+     *
+     * @param algorithmType  The type of algorithm to create.
+     * @param distanceMatrix The matrix representing the distances or costs between pairs of elements.
+     * @return An instance of the specified algorithm type.
+     */
+    public static AbstractAlgorithm createAlgorithmShared(AlgorithmType algorithmType, DistanceMatrix distanceMatrix) {
         switch (algorithmType) {
             case GREEDY -> {
                 return new GreedyAlgorithm(distanceMatrix);
@@ -29,19 +41,50 @@ public class AlgorithmFactory {
             case SIMULATED_ANNEALING -> {
                 return new SimulatedAnnealingAlgorithm(distanceMatrix);
             }
+            case EXACT_DP -> {
+                return new HeldKarpAlgorithm(distanceMatrix);
+            }
+            case CHRISTOFIDES -> {
+                return new ChristofidesAlgorithm(distanceMatrix);
+            }
+            case LIN_KERNIGHAN -> {
+                return new LinKernighanAlgorithm(distanceMatrix);
+            }
+            case PORTFOLIO -> {
+                return new PortfolioAlgorithm(distanceMatrix);
+            }
+            case PARALLEL_TEMPERING -> {
+                return new ParallelTemperingAlgorithm(distanceMatrix);
+            }
+            case GENETIC -> {
+                return new GeneticAlgorithm(distanceMatrix);
+            }
+            case ANT_COLONY -> {
+                return new AntColonyAlgorithm(distanceMatrix);
+            }
             default -> throw new RuntimeException("Asked to create algorithm class with invalid AlgorithmType: " + algorithmType);
         }
     }
 
     /**
-     * Creates all available algorithms with the given distance matrix.
+     * Creates all available algorithms with the given distance matrix (copied only once, and shared by all algorithms).
      *
      * @param distanceMatrix The matrix representing the distances or costs between pairs of elements.
      * @return A list of all available algorithms.
      */
     public static List<AbstractAlgorithm> createAllAlgorithms(float[][] distanceMatrix) {
+        return createAllAlgorithmsShared(copyOf(distanceMatrix));
+    }
+
+    /**
+     * Creates all available algorithms, sharing the given distance matrix.
+     *
+     * @param distanceMatrix The matrix representing the distances or costs between pairs of elements.
+     * @return A list of all available algorithms.
+     */
+    public static List<AbstractAlgorithm> createAllAlgorithmsShared(DistanceMatrix distanceMatrix) {
         ArrayList<AbstractAlgorithm> algorithms = new ArrayList<>();
-        for (AlgorithmType type : AlgorithmType.values()) algorithms.add(createAlgorithm(type, distanceMatrix));
+        for (AlgorithmType type : AlgorithmType.values()) algorithms.add(createAlgorithmShared(type, distanceMatrix));
         return algorithms;
     }
 
@@ -52,8 +95,26 @@ public class AlgorithmFactory {
      * @return A list of all available algorithms that can be used.
      */
     public static List<AbstractAlgorithm> getAllUsableAlgorithms(float[][] distanceMatrix) {
-        List<AbstractAlgorithm> algorithms = createAllAlgorithms(distanceMatrix);
+        return getAllUsableAlgorithmsShared(copyOf(distanceMatrix));
+    }
+
+    /**
+     * Creates all available algorithms, sharing the given distance matrix, and removes the ones that can't be used.
+     *
+     * @param distanceMatrix The matrix representing the distances or costs between pairs of elements.
+     * @return A list of all available algorithms that can be used.
+     */
+    public static List<AbstractAlgorithm> getAllUsableAlgorithmsShared(DistanceMatrix distanceMatrix) {
+        List<AbstractAlgorithm> algorithms = createAllAlgorithmsShared(distanceMatrix);
         algorithms.removeIf(algorithm -> !algorithm.canUseAlgorithm());
         return algorithms;
     }
+
+    /**
+     * @param distanceMatrix The matrix representing the distances or costs between pairs of elements.
+     * @return A copy of the matrix, or an empty matrix (no algorithm can be used with it) if it is not square.
+     */
+    private static DistanceMatrix copyOf(float[][] distanceMatrix) {
+        return FlatDistanceMatrix.isSquare(distanceMatrix) ? DistanceMatrix.of(distanceMatrix) : new FlatDistanceMatrix(0);
+    }
 }
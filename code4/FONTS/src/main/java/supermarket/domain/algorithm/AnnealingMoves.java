@@ -0,0 +1,176 @@
+package supermarket.domain.algorithm;
+
+import supermarket.domain.algorithm.SimulatedAnnealingAlgorithm.MoveMix;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Neighborhood of simulated annealing, built on the tour representation of LocalSearchOptimizer (array and position index).
+ * Every move joins a random element a with another element c, which is either random or one of the nearest neighbors of a:
+ * <ul>
+ *     <li>Swap: c exchanges its position with the element after a.</li>
+ *     <li>Reversal: the section from the element after a to c is reversed, so c goes after a (2-opt move).</li>
+ *     <li>Insertion: c is moved right after a.</li>
+ *     <li>Or-opt: the section of 2 or 3 elements that starts at c is moved right after a.</li>
+ * </ul>
+ * The cost difference of every move is calculated in O(1) from the edges that it changes, before it is applied.
+ * Reversals are only used with symmetric matrices, because reversing a section changes its cost otherwise.
+ */
+final class AnnealingMoves extends LocalSearchOptimizer {
+    private enum Operator { NONE, SWAP, REVERSAL, SEGMENT }
+
+    private final int[] cumulativeWeights; //swap, reversal, insertion, or-opt
+    private final double candidateBias;
+
+    //move given by the last call to propose
+    private Operator operator = Operator.NONE;
+    private int moveA, moveC, moveLength;
+
+    /**
+     * Constructor for AnnealingMoves.
+     * @param distanceMatrix The matrix representing the distances or costs between pairs of elements.
+     * @param neighborLists Neighbor lists of the same distance matrix (only used when candidateBias is positive).
+     * @param mix Weights of the move operators.
+     * @param candidateBias Probability that c is one of the nearest neighbors of a instead of a random element.
+     */
+    AnnealingMoves(DistanceMatrix distanceMatrix, NeighborLists neighborLists, MoveMix mix, double candidateBias) {
+        super(distanceMatrix, neighborLists);
+        int reversal = symmetric ? mix.reversal() : 0;
+        int swap = mix.swap() + reversal + mix.insertion() + mix.orOpt() == 0 ? 1 : mix.swap(); //only reversals, but asymmetric
+        cumulativeWeights = new int[] {swap, swap + reversal, swap + reversal + mix.insertion(), swap + reversal + mix.insertion() + mix.orOpt()};
+        this.candidateBias = neighborLists == null ? 0 : candidateBias;
+    }
+
+    /**
+     * @return Current distribution (it changes when moves are applied).
+     */
+    int[] tour() {
+        return tour;
+    }
+
+    /**
+     * Chooses a random move and calculates its cost difference, without applying it.
+     * @param random Random number generator of the chain.
+     * @return Cost of the distribution after the move minus its current cost (0 if the move doesn't change the distribution).
+     */
+    double propose(SplittableRandom random) {
+        int a = random.nextInt(n);
+        int c;
+        if (candidateBias > 0 && neighborLists.getK() > 0 && random.nextDouble() < candidateBias) {
+            c = neighborLists.get(a, random.nextInt(neighborLists.getK()));
+        }
+        else c = random.nextInt(n);
+        moveA = a;
+        moveC = c;
+
+        int choice = random.nextInt(cumulativeWeights[3]);
+        if (choice < cumulativeWeights[0]) return proposeSwap(a, c);
+        if (choice < cumulativeWeights[1]) return proposeReversal(a, c);
+        return proposeSegment(a, c, choice < cumulativeWeights[2] ? 1 : 2 + random.nextInt(MAX_SEGMENT_LENGTH - 1));
+    }
+
+    /**
+     * Calculates the median cost difference of the random moves that make the distribution worse (without applying them).
+     * The median is used to choose temperatures so that a few huge distances (unrelated products) don't make them too high.
+     * @param random Random number generator of the chain.
+     * @param samples Number of sampled moves.
+     * @return Median of the positive cost differences (0 if no sampled move makes the distribution worse).
+     */
+    double medianWorseDelta(SplittableRandom random, int samples) {
+        double[] deltas = new double[samples];
+        int worse = 0;
+        for (int s = 0; s < samples; ++s) {
+            double deltaCost = propose(random);
+            if (deltaCost > 0) deltas[worse++] = deltaCost;
+        }
+        if (worse == 0) return 0;
+        Arrays.sort(deltas, 0, worse);
+        return deltas[worse / 2];
+    }
+
+    /**
+     * Applies the move given by the last call to propose.
+     */
+    void apply() {
+        switch (operator) {
+            case SWAP -> {
+                int i = position[next(moveA)], j = position[moveC];
+                int temp = tour[i];
+                tour[i] = tour[j];
+                tour[j] = temp;
+                position[tour[i]] = i;
+                position[tour[j]] = j;
+            }
+            case REVERSAL -> reverse(position[next(moveA)], position[moveC]);
+            case SEGMENT -> moveSegment(moveC, moveLength, moveA, false);
+            case NONE -> { }
+        }
+    }
+
+    private double proposeSwap(int a, int c) {
+        int i = position[next(a)], j = position[c];
+        operator = i == j ? Operator.NONE : Operator.SWAP;
+        return i == j ? 0 : swapDelta(i, j);
+    }
+
+    private double proposeReversal(int a, int c) {
+        int v = next(a), z = next(c);
+        if (c == a || c == v || z == a) { //the cycle doesn't change
+            operator = Operator.NONE;
+            return 0;
+        }
+        operator = Operator.REVERSAL;
+        //a -> v ... c -> z becomes a -> c ... v -> z
+        return (double) d(a, c) + d(v, z) - d(a, v) - d(c, z);
+    }
+
+    private double proposeSegment(int a, int c, int length) {
+        int before = prev(c);
+        int offset = position[a] - position[c];
+        if (offset < 0) offset += n;
+        if (length + 2 > n || offset < length || a == before) { //not possible, or the cycle doesn't change
+            operator = Operator.NONE;
+            return 0;
+        }
+        operator = Operator.SEGMENT;
+        moveLength = length;
+        int last = tour[(position[c] + length - 1) % n];
+        int after = next(last), y = next(a);
+        //before -> c ... last -> after, a -> y becomes before -> after, a -> c ... last -> y
+        return (double) d(before, after) + d(a, c) + d(last, y) - d(before, c) - d(last, after) - d(a, y);
+    }
+
+    /**
+     * Returns the element that would be at the given position of the distribution after swapping positions pos1 and pos2.
+     */
+    private int elementAfterSwap(int pos, int pos1, int pos2) {
+        if (pos == pos1) return tour[pos2];
+        if (pos == pos2) return tour[pos1];
+        return tour[pos];
+    }
+
+    /**
+     * Calculates the cost difference of the edge that leaves the given position when positions pos1 and pos2 are swapped.
+     */
+    private double edgeSwapDelta(int pos, int pos1, int pos2) {
+        int next = pos + 1 == n ? 0 : pos + 1;
+        return (double) d(elementAfterSwap(pos, pos1, pos2), elementAfterSwap(next, pos1, pos2)) - d(tour[pos], tour[next]);
+    }
+
+    /**
+     * Calculates the change in cycle cost caused by swapping two different positions of the distribution.
+     * Only the edges that enter and leave both positions change, so at most four edges are evaluated
+     * (fewer when the positions are adjacent, also across the end of the circular distribution).
+     */
+    private double swapDelta(int pos1, int pos2) {
+        int a = pos1 == 0 ? n - 1 : pos1 - 1;
+        int b = pos2 == 0 ? n - 1 : pos2 - 1;
+        //edges starting at a, pos1, b and pos2 are the only ones affected, each must be counted once
+        double delta = edgeSwapDelta(a, pos1, pos2);
+        if (pos1 != a) delta += edgeSwapDelta(pos1, pos1, pos2);
+        if (b != a && b != pos1) delta += edgeSwapDelta(b, pos1, pos2);
+        if (pos2 != a && pos2 != pos1 && pos2 != b) delta += edgeSwapDelta(pos2, pos1, pos2);
+        return delta;
+    }
+}
@@ -0,0 +1,321 @@
+package supermarket.domain.algorithm;
+
+import supermarket.tuples.AlgorithmParameter;
+import supermarket.tuples.AlgorithmType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Ant colony optimization (MAX-MIN ant system with elitist deposits). In every iteration, a colony of ants builds
+ * distributions in parallel, each one choosing the next element among the nearest neighbors of the current one
+ * (see NeighborLists) with a probability proportional to the pheromone of the edge times the square of its inverse distance.
+ * Most steps take the most attractive edge, the rest are chosen at random with those probabilities.
+ * When all neighbors are already used, the nearest unused element is taken. Every distribution is improved
+ * by the local search of LocalSearchOptimizer.
+ * <p>
+ * Pheromone is only stored for the edges to the nearest neighbors, in a flat array with a row of k values per element.
+ * Ants only read it while they build their distributions. Then the rows are split in stripes that are updated in parallel:
+ * each row is evaporated and receives the deposits of all ants (and of the best distribution found so far) on its edges,
+ * so every value is written by a single thread and no locks are needed. Values are kept between the bounds of the
+ * MAX-MIN ant system, so the colony keeps exploring.
+ * <p>
+ * Each ant has its own random generator and deposits are added in the same order, so results are deterministic.
+ * The algorithm stops when the best distribution has not improved for a number of iterations.
+ */
+public class AntColonyAlgorithm extends AbstractAlgorithm {
+    static final int DEFAULT_ANTS = 20;
+    static final int DEFAULT_PLATEAU_ITERATIONS = 30;
+    /** Maximum number of ants of the colony. */
+    static final int MAX_ANTS = 1024;
+    /** Seed of the first ant (ant a uses SEED + a). */
+    private static final long SEED = 1;
+    /** Exponent of the inverse distance in the attraction of an edge (the exponent of the pheromone is 1). */
+    private static final double BETA = 2;
+    /** Part of the pheromone that evaporates in each iteration. */
+    private static final double EVAPORATION = 0.1;
+    /** Probability that an ant takes the most attractive edge instead of a random one. */
+    private static final double EXPLOITATION = 0.9;
+    /** Distance used instead of lower ones to calculate attractions (avoids dividing by 0). */
+    private static final float MIN_DISTANCE = 1e-6f;
+    /** Minimum number of elements for the local search (with fewer elements there are no moves). */
+    private static final int MIN_LOCAL_SEARCH_SIZE = 4;
+
+    private int ants = DEFAULT_ANTS;
+    private int candidates = NeighborLists.DEFAULT_K;
+    private int plateauIterations = DEFAULT_PLATEAU_ITERATIONS;
+
+    public AntColonyAlgorithm(float[][] distanceMatrix) {
+        super(distanceMatrix);
+    }
+
+    AntColonyAlgorithm(DistanceMatrix distanceMatrix) {
+        super(distanceMatrix);
+    }
+
+    public AlgorithmType getType() {
+        return AlgorithmType.ANT_COLONY;
+    }
+
+    public ArrayList<AlgorithmParameter> getAvailableParameters() {
+        ArrayList<AlgorithmParameter> params = super.getAvailableParameters();
+        params.add(new AlgorithmParameter(
+                "Ants",
+                """
+                        Number of distributions built in parallel in each iteration (between 1 and 1024).
+                        - More ants: Better results, slower iterations.
+                        - Fewer ants: Faster iterations, faster convergence.
+                        Default value: 20.""",
+                "int"
+        ));
+        params.add(new AlgorithmParameter(
+                "Candidates",
+                """
+                        Number of nearest neighbors among which each ant chooses the next product.
+                        - More candidates: More diverse distributions, slower iterations.
+                        - Fewer candidates: Faster iterations, the nearest products are always preferred.
+                        Default value: 10.""",
+                "int"
+        ));
+        params.add(new AlgorithmParameter(
+                "Plateau Iterations",
+                """
+                        Number of consecutive iterations without improving the best solution after which the algorithm stops.
+                        - High value: More chances to improve the solution, longer execution.
+                        - Low value: The algorithm stops as soon as the solution converges.
+                        Default value: 30.""",
+                "int"
+        ));
+        return params;
+    }
+
+    public void setParameters(List<String> parameters) {
+        super.setParameters(parameters);
+        ants = parseIntParameter(parameters, "Ants", 1, MAX_ANTS, DEFAULT_ANTS);
+        candidates = parseIntParameter(parameters, "Candidates", 1, Integer.MAX_VALUE, NeighborLists.DEFAULT_K);
+        plateauIterations = parseIntParameter(parameters, "Plateau Iterations", 1, Integer.MAX_VALUE, DEFAULT_PLATEAU_ITERATIONS);
+    }
+
+    public int[] calculateDistribution() {
+        return calculateDistribution(ExecutionControl.unlimited());
+    }
+
+    /**
+     * Runs iterations of the colony until the best distribution stops improving or the control asks to stop (checked after every iteration).
+     * @param control Limits and progress listener of the calculation.
+     * @return Array of indices of size relationMatrix, circular path.
+     */
+    public int[] calculateDistribution(ExecutionControl control) {
+        if (n == 0) return new int[] {};
+        NeighborLists neighborLists = candidates == NeighborLists.DEFAULT_K ? getNeighborLists() : new NeighborLists(distanceMatrix, candidates);
+        Colony colony = new Colony(neighborLists);
+        int stale = 0;
+        for (int iteration = 0; stale < plateauIterations; ++iteration) {
+            if (colony.iterate(iteration == 0)) stale = 0;
+            else ++stale;
+            control.report(colony.bestCost, ants);
+            if (colony.bestCost == 0 || control.shouldStop()) break; //no distribution can be better
+        }
+        return colony.bestTour.clone();
+    }
+
+    /**
+     * Pheromone, attractions and ants of a calculation. Arrays are indexed by element * k + rank, where rank is the position
+     * of the destination in the neighbor list of the element.
+     */
+    private final class Colony {
+        final NeighborLists neighborLists;
+        final int k;
+        final boolean symmetric = distanceMatrix.isSymmetric();
+        final float[] heuristic; //inverse distance to the power of BETA
+        final float[] pheromone;
+        final float[] attraction; //pheromone * heuristic, read by the ants
+        final Ant[] ant;
+        final int stripes;
+
+        final int[] bestTour, bestNextRank, bestPreviousRank;
+        double bestCost = Double.POSITIVE_INFINITY;
+
+        Colony(NeighborLists neighborLists) {
+            this.neighborLists = neighborLists;
+            k = neighborLists.getK();
+            heuristic = new float[n * k];
+            for (int i = 0; i < n; ++i) {
+                for (int r = 0; r < k; ++r) {
+                    float distance = Math.max(distanceMatrix.get(i, neighborLists.get(i, r)), MIN_DISTANCE);
+                    heuristic[i * k + r] = (float) Math.pow(distance, -BETA);
+                }
+            }
+            pheromone = new float[n * k];
+            Arrays.fill(pheromone, 1); //only the relative values matter until the first deposits
+            attraction = heuristic.clone();
+            ant = new Ant[ants];
+            for (int a = 0; a < ants; ++a) ant[a] = new Ant(new SplittableRandom(SEED + a), this);
+            stripes = Math.min(n, 4 * ForkJoinPool.getCommonPoolParallelism());
+            bestTour = new int[n];
+            bestNextRank = new int[n];
+            bestPreviousRank = new int[n];
+        }
+
+        /**
+         * Builds the distributions of all ants and updates the pheromone.
+         * @param first If it is the first iteration (the pheromone is then set to its upper bound before the deposits).
+         * @return If the best distribution has improved.
+         */
+        boolean iterate(boolean first) {
+            IntStream.range(0, ants).parallel().forEach(a -> ant[a].build());
+            Ant iterationBest = ant[0];
+            for (Ant a : ant) if (a.cost < iterationBest.cost) iterationBest = a;
+            boolean improved = iterationBest.cost < bestCost;
+            if (improved) {
+                bestCost = iterationBest.cost;
+                System.arraycopy(iterationBest.tour, 0, bestTour, 0, n);
+                System.arraycopy(iterationBest.nextRank, 0, bestNextRank, 0, n);
+                System.arraycopy(iterationBest.previousRank, 0, bestPreviousRank, 0, n);
+            }
+            if (bestCost > 0) {
+                //every ant and the best distribution deposit about as much as the steady state of the best edges
+                double maxPheromone = 2 * ants / (EVAPORATION * bestCost);
+                float upper = (float) maxPheromone, lower = (float) (maxPheromone / (2 * n));
+                IntStream.range(0, stripes).parallel().forEach(s ->
+                        updateRows((int) ((long) s * n / stripes), (int) ((long) (s + 1) * n / stripes), first, lower, upper));
+            }
+            return improved;
+        }
+
+        /**
+         * Evaporates the pheromone of the rows in [from, to) and adds the deposits of the ants on their edges.
+         * Each row is only updated by one stripe, so stripes can run in parallel without locks.
+         */
+        private void updateRows(int from, int to, boolean first, float lower, float upper) {
+            for (int i = from; i < to; ++i) {
+                int base = i * k;
+                for (int r = 0; r < k; ++r) pheromone[base + r] = first ? upper : (float) (pheromone[base + r] * (1 - EVAPORATION));
+                for (Ant a : ant) deposit(base, a.nextRank[i], a.previousRank[i], 1 / a.cost);
+                deposit(base, bestNextRank[i], bestPreviousRank[i], ants / bestCost);
+                for (int r = 0; r < k; ++r) {
+                    pheromone[base + r] = Math.clamp(pheromone[base + r], lower, upper);
+                    attraction[base + r] = pheromone[base + r] * heuristic[base + r];
+                }
+            }
+        }
+
+        /**
+         * Adds pheromone to the edges of a row that are in a distribution (the edge to the previous element only counts with symmetric matrices).
+         */
+        private void deposit(int base, int nextRank, int previousRank, double amount) {
+            if (nextRank >= 0) pheromone[base + nextRank] += (float) amount;
+            if (symmetric && previousRank >= 0) pheromone[base + previousRank] += (float) amount;
+        }
+
+        /**
+         * @return Position of destination in the neighbor list of origin, or -1 if it is not in the list.
+         */
+        int rankOf(int origin, int destination) {
+            for (int r = 0; r < k; ++r) if (neighborLists.get(origin, r) == destination) return r;
+            return -1;
+        }
+    }
+
+    /**
+     * Ant that builds a distribution in each iteration, with its own buffers.
+     */
+    private final class Ant {
+        final SplittableRandom random;
+        final Colony colony;
+        final LocalSearchOptimizer optimizer;
+        final int[] tour;
+        final int[] nextRank, previousRank; //rank of the next and previous elements of each element in its neighbor list
+        final boolean[] visited;
+        double cost;
+
+        Ant(SplittableRandom random, Colony colony) {
+            this.random = random;
+            this.colony = colony;
+            optimizer = new LocalSearchOptimizer(distanceMatrix, colony.neighborLists);
+            tour = new int[n];
+            nextRank = new int[n];
+            previousRank = new int[n];
+            visited = new boolean[n];
+        }
+
+        void build() {
+            Arrays.fill(visited, false);
+            int current = random.nextInt(n);
+            tour[0] = current;
+            visited[current] = true;
+            for (int i = 1; i < n; ++i) {
+                current = chooseNext(current);
+                tour[i] = current;
+                visited[current] = true;
+            }
+            optimizer.load(tour);
+            if (n >= MIN_LOCAL_SEARCH_SIZE) {
+                for (int v = 0; v < n; ++v) optimizer.push(v);
+                optimizer.processQueue();
+                System.arraycopy(optimizer.tour, 0, tour, 0, n);
+            }
+            cost = optimizer.cost();
+            for (int i = 0; i < n; ++i) {
+                int v = tour[i], next = tour[i + 1 == n ? 0 : i + 1];
+                nextRank[v] = colony.rankOf(v, next);
+                previousRank[next] = colony.rankOf(next, v);
+            }
+        }
+
+        /**
+         * Chooses the next element among the unused neighbors of current, or the nearest unused element if all of them are used.
+         */
+        private int chooseNext(int current) {
+            int base = current * colony.k;
+            boolean exploit = random.nextDouble() < EXPLOITATION;
+            int best = -1;
+            float bestAttraction = -1;
+            double total = 0;
+            for (int r = 0; r < colony.k; ++r) {
+                if (visited[colony.neighborLists.get(current, r)]) continue;
+                float value = colony.attraction[base + r];
+                if (value > bestAttraction) {
+                    bestAttraction = value;
+                    best = r;
+                }
+                total += value;
+            }
+            if (best == -1) return nearestUnvisited(current);
+            if (exploit || total == 0) return colony.neighborLists.get(current, best);
+            //random neighbor, with probability proportional to its attraction
+            double x = random.nextDouble() * total;
+            for (int r = 0; r < colony.k; ++r) {
+                int candidate = colony.neighborLists.get(current, r);
+                if (visited[candidate]) continue;
+                x -= colony.attraction[base + r];
+                if (x < 0) return candidate;
+            }
+            return colony.neighborLists.get(current, best); //rounding errors
+        }
+
+        private int nearestUnvisited(int current) {
+            int next = -1;
+            if (distanceMatrix instanceof FlatDistanceMatrix flat) {
+                //current is always visited, so the whole row can be scanned by the kernel
+                next = MatrixKernels.SELECTED.argMin(flat.values(), current * n, visited);
+            }
+            else {
+                float minDistance = Float.MAX_VALUE;
+                for (int i = 0; i < n; ++i) {
+                    if (!visited[i] && distanceMatrix.get(current, i) < minDistance) {
+                        minDistance = distanceMatrix.get(current, i);
+                        next = i;
+                    }
+                }
+            }
+            if (next != -1) return next;
+            for (int i = 0; i < n; ++i) if (!visited[i]) return i; //all distances are too large
+            throw new IllegalStateException("All elements have been visited");
+        }
+    }
+}
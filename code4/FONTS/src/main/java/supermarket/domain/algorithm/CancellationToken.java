@@ -0,0 +1,23 @@
+package supermarket.domain.algorithm;
+
+/**
+ * Token used to ask a running algorithm to stop (see ExecutionControl).
+ * It can be cancelled from any thread, and the algorithm returns the best distribution found so far.
+ */
+public final class CancellationToken {
+    private volatile boolean cancelled = false;
+
+    /**
+     * Asks the algorithms that use this token to stop as soon as possible.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return If the token has been cancelled.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,191 @@
+package supermarket.domain.algorithm;
+
+import supermarket.domain.algorithm.GraphUtils.WeightedEdge;
+import supermarket.tuples.AlgorithmParameter;
+import supermarket.tuples.AlgorithmType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static supermarket.domain.algorithm.GraphUtils.edgeKeyDestination;
+import static supermarket.domain.algorithm.GraphUtils.edgeKeySource;
+import static supermarket.domain.algorithm.GraphUtils.matrixToSortedEdgeKeys;
+
+/**
+ * Class that implements Christofides' algorithm for solving the TSP with 1.5-approximation.
+ * It reuses the steps of the Kruskal approximation, but the minimum spanning tree is completed with a minimum weight
+ * perfect matching of the nodes with odd degree, so the graph has an eulerian cycle that is then shortcut.
+ * The matching is exact (dynamic programming over subsets) when there are few odd nodes,
+ * and otherwise it is built greedily and improved by exchanging pairs (the 1.5 bound is not guaranteed in that case).
+ */
+public class ChristofidesAlgorithm extends KruskalApproxAlgorithm {
+    /** Maximum number of odd nodes for the matching to be exact. */
+    static final int MAX_EXACT_MATCHING = 20;
+    /** Minimum improvement for an exchange of pairs to be applied. */
+    private static final double EPSILON = 1e-5;
+
+    public static final String[] matchingTypes = {"Exact", "Greedy"};
+    private String matchingType = "Exact";
+
+    public ChristofidesAlgorithm(float[][] distanceMatrix) {
+        super(distanceMatrix);
+    }
+
+    ChristofidesAlgorithm(DistanceMatrix distanceMatrix) {
+        super(distanceMatrix);
+    }
+
+    public AlgorithmType getType() {
+        return AlgorithmType.CHRISTOFIDES;
+    }
+
+    public ArrayList<AlgorithmParameter> getAvailableParameters() {
+        ArrayList<AlgorithmParameter> params = super.getAvailableParameters();
+        params.add(new AlgorithmParameter(
+                "Matching Type",
+                """
+                        How the nodes with odd degree of the minimum spanning tree are matched.
+                        Exact finds the minimum weight matching when there are at most 20 odd nodes, and uses Greedy otherwise (default option)
+                        Greedy matches the closest pairs first, and then exchanges pairs while it improves the matching (faster execution)""",
+                "{" + matchingTypes[0] + "," + matchingTypes[1] + "}"
+        ));
+        return params;
+    }
+
+    public void setParameters(List<String> parameters) {
+        super.setParameters(parameters);
+        if (parameters.isEmpty()) return; //optional parameter
+        String param = parameters.removeFirst();
+        if (!Arrays.asList(matchingTypes).contains(param)) {
+            System.err.println("Received unknown param for \"Matching type\": " + param + ". Using default value instead.");
+            return;
+        }
+        matchingType = param;
+    }
+
+    /**
+     * Gives the minimum spanning tree and a perfect matching of its nodes with odd degree.
+     * All nodes have even degree in the result, so it has an eulerian cycle.
+     * When the control asks to stop, the spanning tree and the improvement of the greedy matching are cut short.
+     */
+    ArrayList<WeightedEdge> getEulerianGraph(ExecutionControl control) {
+        ArrayList<WeightedEdge> graph = getMST(control);
+        int[] degree = new int[n];
+        for (WeightedEdge e : graph) {
+            ++degree[e.u()];
+            ++degree[e.v()];
+        }
+        int[] odd = new int[n];
+        int k = 0;
+        for (int v = 0; v < n; ++v) if (degree[v] % 2 == 1) odd[k++] = v;
+        odd = Arrays.copyOf(odd, k);
+
+        //weights between odd nodes (symmetry is assumed, as in the minimum spanning tree)
+        SymmetricDistanceMatrix weights = new SymmetricDistanceMatrix(k);
+        for (int i = 0; i < k; ++i) {
+            for (int j = i + 1; j < k; ++j) {
+                weights.set(i, j, Math.min(distanceMatrix.get(odd[i], odd[j]), distanceMatrix.get(odd[j], odd[i])));
+            }
+        }
+        int[] mate;
+        if (matchingType.equals("Exact") && k <= MAX_EXACT_MATCHING) mate = getExactMatching(weights);
+        else {
+            mate = getGreedyMatching(weights);
+            improveMatching(weights, mate, control);
+        }
+        for (int i = 0; i < k; ++i) {
+            if (i < mate[i]) graph.add(new WeightedEdge(odd[i], odd[mate[i]], weights.get(i, mate[i])));
+        }
+        return graph;
+    }
+
+    /**
+     * Finds a minimum weight perfect matching with dynamic programming over subsets, O(2^k * k).
+     * The lowest unmatched node of each subset is always the next one to be matched, so each matching is built only once.
+     * @param weights Symmetric matrix of weights between the k nodes to match (k even).
+     * @return Node matched with each node.
+     */
+    private static int[] getExactMatching(DistanceMatrix weights) {
+        int k = weights.size();
+        int full = (1 << k) - 1;
+        double[] cost = new double[1 << k]; //double, so large weights don't hide the small ones
+        short[] choice = new short[1 << k];
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        cost[0] = 0;
+        for (int mask = 0; mask < full; ++mask) {
+            if (cost[mask] == Double.POSITIVE_INFINITY) continue;
+            int i = Integer.numberOfTrailingZeros(~mask);
+            for (int j = i + 1; j < k; ++j) {
+                if ((mask & (1 << j)) != 0) continue;
+                int next = mask | (1 << i) | (1 << j);
+                double candidate = cost[mask] + weights.get(i, j);
+                if (candidate < cost[next]) {
+                    cost[next] = candidate;
+                    choice[next] = (short) (i * MAX_EXACT_MATCHING + j);
+                }
+            }
+        }
+
+        int[] mate = new int[k];
+        int mask = full;
+        while (mask != 0) {
+            int i = choice[mask] / MAX_EXACT_MATCHING, j = choice[mask] % MAX_EXACT_MATCHING;
+            mate[i] = j;
+            mate[j] = i;
+            mask ^= (1 << i) | (1 << j);
+        }
+        return mate;
+    }
+
+    /**
+     * Builds a perfect matching taking the lightest pairs first (pairs sorted as in Kruskal's algorithm).
+     * @param weights Symmetric matrix of weights between the k nodes to match (k even).
+     * @return Node matched with each node.
+     */
+    private static int[] getGreedyMatching(DistanceMatrix weights) {
+        int k = weights.size();
+        int[] mate = new int[k];
+        Arrays.fill(mate, -1);
+        int matched = 0;
+        for (long key : matrixToSortedEdgeKeys(weights, true)) {
+            if (matched == k) break;
+            int i = edgeKeySource(key, k), j = edgeKeyDestination(key, k);
+            if (mate[i] != -1 || mate[j] != -1) continue;
+            mate[i] = j;
+            mate[j] = i;
+            matched += 2;
+        }
+        return mate;
+    }
+
+    /**
+     * Improves a perfect matching exchanging the nodes of two pairs, (a, b) (c, d) to (a, c) (b, d) or (a, d) (b, c),
+     * while any exchange reduces the total weight and the control does not ask to stop (checked for each node).
+     */
+    private static void improveMatching(DistanceMatrix weights, int[] mate, ExecutionControl control) {
+        int k = weights.size();
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int a = 0; a < k; ++a) {
+                if (control.shouldStop()) return; //the matching is still perfect
+                for (int c = a + 1; c < k; ++c) {
+                    int b = mate[a], d = mate[c];
+                    if (c == b) continue;
+                    double current = (double) weights.get(a, b) + weights.get(c, d);
+                    if ((double) weights.get(a, c) + weights.get(b, d) < current - EPSILON) {
+                        mate[a] = c; mate[c] = a;
+                        mate[b] = d; mate[d] = b;
+                        improved = true;
+                    }
+                    else if ((double) weights.get(a, d) + weights.get(b, c) < current - EPSILON) {
+                        mate[a] = d; mate[d] = a;
+                        mate[b] = c; mate[c] = b;
+                        improved = true;
+                    }
+                }
+            }
+        }
+    }
+}
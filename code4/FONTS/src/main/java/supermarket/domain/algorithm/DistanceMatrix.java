@@ -0,0 +1,44 @@
+package supermarket.domain.algorithm;
+
+/**
+ * Square matrix with the distances or costs between pairs of elements, used by all algorithms.
+ * The value at (i, j) is the cost of going from element i to element j.
+ * Implementations decide how the values are stored (see FlatDistanceMatrix for the default one).
+ */
+public interface DistanceMatrix {
+    /**
+     * @return Number of elements (rows and columns) of the matrix.
+     */
+    int size();
+
+    /**
+     * @param i Row (origin element).
+     * @param j Column (destination element).
+     * @return Distance from element i to element j.
+     */
+    float get(int i, int j);
+
+    /**
+     * Implementations that store many values should keep the result up to date instead of scanning the matrix,
+     * as it is checked by every algorithm (and by every optimizer they create).
+     * @return If the distance from i to j is the same as the distance from j to i, for all pairs of elements.
+     */
+    default boolean isSymmetric() {
+        int n = size();
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < i; ++j) {
+                if (Float.compare(get(i, j), get(j, i)) != 0) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a distance matrix with the default storage, copying the values of the given one.
+     * @param matrix Square matrix of distances.
+     * @return A new distance matrix with the same values.
+     */
+    static DistanceMatrix of(float[][] matrix) {
+        return new FlatDistanceMatrix(matrix);
+    }
+}
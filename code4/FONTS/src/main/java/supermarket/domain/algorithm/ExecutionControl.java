@@ -0,0 +1,109 @@
+package supermarket.domain.algorithm;
+
+import java.time.Duration;
+
+/**
+ * Limits of a single run of an algorithm: a time budget, a cancellation token and a listener for its progress.
+ * Algorithms that support it check shouldStop() regularly and, when it is true, return the best distribution found so far.
+ * An instance must not be shared between different runs.
+ */
+public final class ExecutionControl {
+    private final long deadline; //System.nanoTime() value
+    private final boolean hasDeadline;
+    private final CancellationToken cancellationToken;
+    private final ProgressListener progressListener;
+    private final ExecutionControl parent; //run that contains this one (null if none)
+    private final boolean reportsToParent;
+    private volatile boolean stopped = false; //once true, shouldStop() doesn't check the limits again
+
+    private double bestCost = Double.POSITIVE_INFINITY;
+    private long iterations = 0;
+
+    /**
+     * Constructor for ExecutionControl.
+     * @param timeBudget Maximum duration of the run, starting now (null for no limit).
+     * @param cancellationToken Token that stops the run when cancelled (can be null).
+     * @param progressListener Listener that receives the progress of the run (can be null).
+     */
+    public ExecutionControl(Duration timeBudget, CancellationToken cancellationToken, ProgressListener progressListener) {
+        this(timeBudget, cancellationToken, progressListener, null, false);
+    }
+
+    private ExecutionControl(Duration timeBudget, CancellationToken cancellationToken, ProgressListener progressListener,
+                             ExecutionControl parent, boolean reportsToParent) {
+        this.deadline = timeBudget == null ? 0 : System.nanoTime() + timeBudget.toNanos();
+        this.hasDeadline = timeBudget != null;
+        this.cancellationToken = cancellationToken;
+        this.progressListener = progressListener;
+        this.parent = parent;
+        this.reportsToParent = reportsToParent;
+    }
+
+    /**
+     * @return A control without time limit, cancellation or listener.
+     */
+    public static ExecutionControl unlimited() {
+        return new ExecutionControl(null, null, null);
+    }
+
+    /**
+     * Creates a control for a part of this run (for example, one of the algorithms of a portfolio).
+     * It stops when this control stops or with its own limits, and its progress is also reported to this control.
+     * @param timeBudget Maximum duration of the part, starting now (null for no limit other than this control's).
+     * @param cancellationToken Token that stops only the part when cancelled (can be null).
+     * @return A new control for the part.
+     */
+    public ExecutionControl createChild(Duration timeBudget, CancellationToken cancellationToken) {
+        return new ExecutionControl(timeBudget, cancellationToken, null, this, true);
+    }
+
+    /**
+     * Creates a control for an auxiliary step of this run (for example, finding a starting distribution).
+     * It stops when this control stops, but its progress is not reported to this control.
+     * @return A new control for the step.
+     */
+    ExecutionControl createSilentChild() {
+        return new ExecutionControl(null, null, null, this, false);
+    }
+
+    /**
+     * Checks the limits without locking, so it can be called often from any thread (unlike report).
+     * @return If the algorithm should stop, because the time budget is over or the token has been cancelled
+     * (its own or the ones of the controls that contain it).
+     */
+    public boolean shouldStop() {
+        if (stopped) return true;
+        if ((cancellationToken != null && cancellationToken.isCancelled())
+                || (hasDeadline && System.nanoTime() - deadline >= 0)
+                || (parent != null && parent.shouldStop())) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    /**
+     * Reports progress of the run. Can be called from different threads.
+     * @param cost Cost of the best distribution found by the caller.
+     * @param newIterations Number of iterations done by the caller since its last report.
+     */
+    public synchronized void report(double cost, long newIterations) {
+        iterations += newIterations;
+        if (cost < bestCost) bestCost = cost;
+        if (progressListener != null) progressListener.onProgress(bestCost, iterations);
+        if (reportsToParent) parent.report(cost, newIterations);
+    }
+
+    /**
+     * @return Cost of the best distribution reported so far (infinity if nothing has been reported).
+     */
+    public synchronized double getBestCost() {
+        return bestCost;
+    }
+
+    /**
+     * @return Number of iterations reported so far.
+     */
+    public synchronized long getIterations() {
+        return iterations;
+    }
+}
@@ -0,0 +1,82 @@
+package supermarket.domain.algorithm;
+
+/**
+ * Default implementation of DistanceMatrix, which stores all values in a single float array (row-major order).
+ * Compared to a float[][] matrix, a lookup needs a single array access and rows are contiguous in memory.
+ */
+public final class FlatDistanceMatrix implements DistanceMatrix {
+    private final int n;
+    private final float[] values;
+    private long asymmetricPairs = 0; //pairs (i, j) with a different distance from j to i, kept up to date by set
+
+    /**
+     * Creates a matrix of the given size with all distances set to 0.
+     * @param n Number of elements.
+     */
+    public FlatDistanceMatrix(int n) {
+        if (n < 0) throw new IllegalArgumentException("Matrix size can't be negative: " + n);
+        if ((long) n * n > Integer.MAX_VALUE) throw new IllegalArgumentException("Matrix is too big to be stored in a single array: " + n);
+        this.n = n;
+        values = new float[n * n];
+    }
+
+    /**
+     * Creates a matrix with a copy of the values of the given one.
+     * @param matrix Square matrix of distances.
+     */
+    public FlatDistanceMatrix(float[][] matrix) {
+        this(matrix.length);
+        for (int i = 0; i < n; ++i) {
+            if (matrix[i].length != n) throw new IllegalArgumentException("Distance matrix must be square");
+            System.arraycopy(matrix[i], 0, values, i * n, n);
+        }
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < i; ++j) {
+                if (Float.compare(get(i, j), get(j, i)) != 0) ++asymmetricPairs;
+            }
+        }
+    }
+
+    /**
+     * @param matrix Matrix to check.
+     * @return If all rows of the matrix have as many values as rows there are.
+     */
+    public static boolean isSquare(float[][] matrix) {
+        for (float[] row : matrix) {
+            if (row.length != matrix.length) return false;
+        }
+        return true;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public float get(int i, int j) {
+        return values[i * n + j];
+    }
+
+    public boolean isSymmetric() {
+        return asymmetricPairs == 0;
+    }
+
+    /**
+     * @return Array where the values are stored (row i starts at position i * n), for the kernels of MatrixKernels.
+     */
+    float[] values() {
+        return values;
+    }
+
+    /**
+     * Changes the distance from element i to element j.
+     * @param i Row (origin element).
+     * @param j Column (destination element).
+     * @param value New distance.
+     */
+    public void set(int i, int j, float value) {
+        float reverse = get(j, i);
+        if (i != j && Float.compare(get(i, j), reverse) != 0) --asymmetricPairs;
+        values[i * n + j] = value;
+        if (i != j && Float.compare(value, reverse) != 0) ++asymmetricPairs;
+    }
+}
@@ -0,0 +1,420 @@
+package supermarket.domain.algorithm;
+
+import supermarket.domain.algorithm.SimulatedAnnealingAlgorithm.Configuration;
+import supermarket.domain.algorithm.SimulatedAnnealingAlgorithm.MoveMix;
+import supermarket.tuples.AlgorithmParameter;
+import supermarket.tuples.AlgorithmType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Genetic algorithm with an island model: several populations (islands) evolve at the same time, each one in its own thread,
+ * and every few generations each island sends a copy of its best distribution to the next one (ring migration).
+ * <p>
+ * Children are built from two parents chosen by tournament, with one of these crossovers:
+ * <ul>
+ *     <li>Edge: starting from the first element of a parent, the next element is the nearest one that follows the current element
+ *     in any parent (or precedes it, with symmetric matrices). When all of them are already used, the nearest unused neighbor
+ *     is taken (or a random element). Most edges of the child come from its parents, and the shortest ones are preferred.</li>
+ *     <li>Order (OX): a random section of the first parent is copied, and the rest of elements are added in the order of the second parent.</li>
+ * </ul>
+ * Some children are mutated with the swap move of simulated annealing, and then improved with the 2-opt and Or-opt moves
+ * of LocalSearchOptimizer starting only from the elements of edges that are not in the parents, so it is close to linear.
+ * A child replaces the worst distribution of its island when it is better and its cost is not already in the island.
+ * <p>
+ * Populations are stored in arrays allocated at the start, and children are built in buffers of the island, so islands don't allocate
+ * memory while they evolve. Half of every population is seeded with greedy distributions from random starting nodes
+ * (and the Kruskal approximation, in the first island), improved by local search, so it converges fast; the other half
+ * are random distributions improved by local search, which keep the population diverse.
+ * Migrations happen while all islands wait, so results are deterministic. The algorithm stops when the best distribution
+ * has not improved for a number of migrations.
+ */
+public class GeneticAlgorithm extends AbstractAlgorithm {
+    static final int DEFAULT_ISLANDS = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    static final int DEFAULT_POPULATION_SIZE = 30;
+    static final int DEFAULT_MIGRATION_INTERVAL = 5;
+    static final int DEFAULT_PLATEAU_MIGRATIONS = 10;
+    /** Maximum number of islands (each one has its own thread). */
+    static final int MAX_ISLANDS = 64;
+    /** Minimum number of distributions of each island. */
+    static final int MIN_POPULATION_SIZE = 4;
+    /** Seed of the first island (island i uses SEED + i). */
+    private static final long SEED = 1;
+    /** Probability that a child is mutated with a swap move. */
+    private static final double MUTATION_PROBABILITY = 0.2;
+    /** Minimum number of elements for the local search (with fewer elements there are no moves). */
+    private static final int MIN_LOCAL_SEARCH_SIZE = 4;
+
+    public static final String[] crossoverTypes = {"Edge", "Order"};
+    private String crossoverType = "Edge";
+    private int islands = DEFAULT_ISLANDS;
+    private int populationSize = DEFAULT_POPULATION_SIZE;
+    private int migrationInterval = DEFAULT_MIGRATION_INTERVAL; //generations between two migrations
+    private int plateauMigrations = DEFAULT_PLATEAU_MIGRATIONS;
+
+    public GeneticAlgorithm(float[][] distanceMatrix) {
+        super(distanceMatrix);
+    }
+
+    GeneticAlgorithm(DistanceMatrix distanceMatrix) {
+        super(distanceMatrix);
+    }
+
+    public AlgorithmType getType() {
+        return AlgorithmType.GENETIC;
+    }
+
+    public ArrayList<AlgorithmParameter> getAvailableParameters() {
+        ArrayList<AlgorithmParameter> params = super.getAvailableParameters();
+        params.add(new AlgorithmParameter(
+                "Crossover Type",
+                """
+                        How a child is built from its two parents.
+                        Edge follows the edges of the parents, taking the shortest one that can be used at each step (default option)
+                        Order copies a section of the first parent and adds the rest of elements in the order of the second one (more diverse children)""",
+                "{" + crossoverTypes[0] + "," + crossoverTypes[1] + "}"
+        ));
+        params.add(new AlgorithmParameter(
+                "Islands",
+                """
+                        Number of populations that evolve at the same time, each one in its own thread (between 1 and 64).
+                        - More islands: Better results, as long as there are enough processors to run them at the same time.
+                        - Fewer islands: Less processors used.
+                        Default value: number of available processors (between 1 and 8).""",
+                "int"
+        ));
+        params.add(new AlgorithmParameter(
+                "Population Size",
+                """
+                        Number of distributions of each island (at least 4). Each generation creates as many children as distributions.
+                        - Large population: More diversity, slower generations.
+                        - Small population: Faster convergence, more chances of getting stuck.
+                        Default value: 30.""",
+                "int"
+        ));
+        params.add(new AlgorithmParameter(
+                "Migration Interval",
+                """
+                        Generations between two migrations, when each island sends a copy of its best distribution to the next one.
+                        Default value: 5.""",
+                "int"
+        ));
+        params.add(new AlgorithmParameter(
+                "Plateau Migrations",
+                """
+                        Number of consecutive migrations without improving the best solution after which the algorithm stops.
+                        - High value: More chances to improve the solution, longer execution.
+                        - Low value: The algorithm stops as soon as the solution converges.
+                        Default value: 10.""",
+                "int"
+        ));
+        return params;
+    }
+
+    public void setParameters(List<String> parameters) {
+        super.setParameters(parameters);
+        //all parameters are optional
+        String param = parameters.isEmpty() ? null : parameters.removeFirst();
+        if (param == null) crossoverType = "Edge";
+        else if (Arrays.asList(crossoverTypes).contains(param)) crossoverType = param;
+        else {
+            System.err.println("Received unknown param for \"Crossover type\": " + param + ". Using default value instead.");
+            crossoverType = "Edge";
+        }
+        islands = parseIntParameter(parameters, "Islands", 1, MAX_ISLANDS, DEFAULT_ISLANDS);
+        populationSize = parseIntParameter(parameters, "Population Size", MIN_POPULATION_SIZE, Integer.MAX_VALUE, DEFAULT_POPULATION_SIZE);
+        migrationInterval = parseIntParameter(parameters, "Migration Interval", 1, Integer.MAX_VALUE, DEFAULT_MIGRATION_INTERVAL);
+        plateauMigrations = parseIntParameter(parameters, "Plateau Migrations", 1, Integer.MAX_VALUE, DEFAULT_PLATEAU_MIGRATIONS);
+    }
+
+    public int[] calculateDistribution() {
+        return calculateDistribution(ExecutionControl.unlimited());
+    }
+
+    /**
+     * Evolves the islands until the best distribution stops improving or the control asks to stop (checked after every generation).
+     * @param control Limits and progress listener of the calculation.
+     * @return Array of indices of size relationMatrix, circular path.
+     */
+    public int[] calculateDistribution(ExecutionControl control) {
+        if (n == 0) return new int[] {};
+        int count = islands;
+        NeighborLists neighborLists = getNeighborLists();
+        GreedyAlgorithm greedy = new GreedyAlgorithm(distanceMatrix);
+        greedy.setNeighborLists(neighborLists);
+        int[] kruskal = n >= MIN_LOCAL_SEARCH_SIZE ? new KruskalApproxAlgorithm(distanceMatrix).calculateDistribution(control.createSilentChild()) : null;
+
+        Island[] island = new Island[count];
+        for (int i = 0; i < count; ++i) {
+            island[i] = new Island(new SplittableRandom(SEED + i), neighborLists, greedy, i == 0 ? kruskal : null, control);
+        }
+        new Migrations(island, control).runWorkers(island, "genetic-", "the genetic algorithm");
+
+        Island best = island[0];
+        for (Island i : island) if (i.cost[i.best] < best.cost[best.best]) best = i;
+        return best.pool[best.best].clone();
+    }
+
+    /**
+     * Population that evolves in its own thread. All its arrays are allocated when it is created.
+     */
+    private final class Island implements RoundBarrier.Worker {
+        final SplittableRandom random;
+        final NeighborLists neighborLists;
+        final GreedyAlgorithm greedy;
+        final int[] seed; //distribution added to the initial population (null if there is none)
+        final ExecutionControl control;
+        final AnnealingMoves moves; //swap mutations and local search
+        final int[][] pool;
+        final double[] cost;
+        int best; //index of the best distribution in the pool
+        long children; //number of children created in the current round
+
+        //buffers of the crossover
+        private final int[] child, successorA, successorB, predecessorA, predecessorB, remaining, remainingPosition;
+        private final boolean[] used;
+
+        Island(SplittableRandom random, NeighborLists neighborLists, GreedyAlgorithm greedy, int[] seed, ExecutionControl control) {
+            this.random = random;
+            this.neighborLists = neighborLists;
+            this.greedy = greedy;
+            this.seed = seed;
+            this.control = control;
+            moves = new AnnealingMoves(distanceMatrix, neighborLists, new MoveMix(1, 0, 0, 0), Configuration.DEFAULT_CANDIDATE_BIAS);
+            pool = new int[populationSize][n];
+            cost = new double[populationSize];
+            child = new int[n];
+            successorA = new int[n];
+            successorB = new int[n];
+            predecessorA = new int[n];
+            predecessorB = new int[n];
+            remaining = new int[n];
+            remainingPosition = new int[n];
+            used = new boolean[n];
+        }
+
+        /**
+         * Fills the pool: the seed (if any) and greedy distributions in the first half, random distributions in the second one,
+         * all of them improved by local search (which stops early when the control asks to).
+         */
+        public void start() {
+            for (int p = 0; p < populationSize; ++p) {
+                if (p == 0 && seed != null) moves.load(seed);
+                else if (p < populationSize / 2) moves.load(greedy.findOrder(random.nextInt(n)));
+                else {
+                    for (int i = 0; i < n; ++i) child[i] = i;
+                    for (int i = n - 1; i > 0; --i) { //random distribution
+                        int j = random.nextInt(i + 1);
+                        int temp = child[i];
+                        child[i] = child[j];
+                        child[j] = temp;
+                    }
+                    moves.load(child);
+                }
+                if (n >= MIN_LOCAL_SEARCH_SIZE) {
+                    for (int v = 0; v < n; ++v) moves.push(v);
+                    moves.processQueue(control);
+                }
+                System.arraycopy(moves.tour(), 0, pool[p], 0, n);
+                cost[p] = moves.cost();
+                if (cost[p] < cost[best]) best = p;
+            }
+        }
+
+        /**
+         * Evolves the island for the generations between two migrations.
+         */
+        public void round() {
+            children = 0;
+            for (int g = 0; g < migrationInterval && !control.shouldStop(); ++g) generation();
+        }
+
+        /**
+         * Creates as many children as distributions in the pool.
+         */
+        private void generation() {
+            for (int c = 0; c < populationSize; ++c) {
+                int a = select(), b = select();
+                if (b == a) b = (a + 1 + random.nextInt(populationSize - 1)) % populationSize;
+                if (crossoverType.equals("Order")) orderCrossover(pool[a], pool[b]);
+                else edgeCrossover(pool[a], pool[b]);
+
+                moves.load(child);
+                if (random.nextDouble() < MUTATION_PROBABILITY) {
+                    moves.propose(random);
+                    moves.apply();
+                }
+                int[] tour = moves.tour();
+                if (n >= MIN_LOCAL_SEARCH_SIZE) {
+                    //only the surroundings of new edges can be improved (the edges of the parents are already locally optimal)
+                    for (int i = 0; i < n; ++i) {
+                        int x = tour[i], y = tour[i + 1 == n ? 0 : i + 1];
+                        if (!isParentEdge(x, y)) {
+                            moves.push(x);
+                            moves.push(y);
+                        }
+                    }
+                    moves.processQueue();
+                }
+                offer(tour, moves.cost());
+                ++children;
+            }
+        }
+
+        /**
+         * Chooses a distribution of the pool with a binary tournament (the best one of two random distributions).
+         */
+        private int select() {
+            int i = random.nextInt(populationSize), j = random.nextInt(populationSize);
+            return cost[i] <= cost[j] ? i : j;
+        }
+
+        /**
+         * Replaces the worst distribution of the pool with the given one, if it is better and its cost is not already in the pool.
+         */
+        void offer(int[] distribution, double distributionCost) {
+            int worst = best == 0 ? 1 : 0;
+            for (int p = 0; p < populationSize; ++p) {
+                if (cost[p] == distributionCost) return; //most likely the same distribution
+                if (p != best && cost[p] > cost[worst]) worst = p;
+            }
+            if (distributionCost >= cost[worst]) return;
+            System.arraycopy(distribution, 0, pool[worst], 0, n);
+            cost[worst] = distributionCost;
+            if (distributionCost < cost[best]) best = worst;
+        }
+
+        /**
+         * Stores the successor (and predecessor) of every element in both parents.
+         */
+        private void indexParents(int[] parentA, int[] parentB) {
+            for (int i = 0; i < n; ++i) {
+                int next = i + 1 == n ? 0 : i + 1;
+                successorA[parentA[i]] = parentA[next];
+                predecessorA[parentA[next]] = parentA[i];
+                successorB[parentB[i]] = parentB[next];
+                predecessorB[parentB[next]] = parentB[i];
+            }
+        }
+
+        private boolean isParentEdge(int x, int y) {
+            if (successorA[x] == y || successorB[x] == y) return true;
+            return moves.symmetric && (predecessorA[x] == y || predecessorB[x] == y);
+        }
+
+        /**
+         * Builds the child following the shortest usable edge of the parents at each step.
+         */
+        private void edgeCrossover(int[] parentA, int[] parentB) {
+            indexParents(parentA, parentB);
+            for (int i = 0; i < n; ++i) {
+                remaining[i] = i;
+                remainingPosition[i] = i;
+            }
+            int left = n;
+            int current = parentA[0];
+            for (int i = 0; i < n; ++i) {
+                if (i > 0) {
+                    int next = nearestUnused(current, successorA[current], -1);
+                    next = nearestUnused(current, successorB[current], next);
+                    if (moves.symmetric) {
+                        next = nearestUnused(current, predecessorA[current], next);
+                        next = nearestUnused(current, predecessorB[current], next);
+                    }
+                    for (int rank = 0; next == -1 && rank < neighborLists.getK(); ++rank) {
+                        int candidate = neighborLists.get(current, rank);
+                        if (remainingPosition[candidate] >= 0) next = candidate;
+                    }
+                    if (next == -1) next = remaining[random.nextInt(left)];
+                    current = next;
+                }
+                child[i] = current;
+                //removed from the unused elements in O(1), the last one takes its place
+                int p = remainingPosition[current];
+                int last = remaining[--left];
+                remaining[p] = last;
+                remainingPosition[last] = p;
+                remainingPosition[current] = -1;
+            }
+        }
+
+        /**
+         * @return The candidate if it is unused and nearer to current than the best one so far, otherwise the best one so far (-1 if none).
+         */
+        private int nearestUnused(int current, int candidate, int best) {
+            if (remainingPosition[candidate] < 0) return best;
+            if (best == -1 || distanceMatrix.get(current, candidate) < distanceMatrix.get(current, best)) return candidate;
+            return best;
+        }
+
+        /**
+         * Builds the child with the order crossover (OX).
+         */
+        private void orderCrossover(int[] parentA, int[] parentB) {
+            indexParents(parentA, parentB);
+            int from = random.nextInt(n), to = random.nextInt(n);
+            if (from > to) {
+                int temp = from;
+                from = to;
+                to = temp;
+            }
+            Arrays.fill(used, false);
+            for (int i = from; i <= to; ++i) {
+                child[i] = parentA[i];
+                used[parentA[i]] = true;
+            }
+            int position = to + 1 == n ? 0 : to + 1;
+            for (int t = 1; t <= n; ++t) {
+                int v = parentB[(to + t) % n];
+                if (used[v]) continue;
+                child[position] = v;
+                position = position + 1 == n ? 0 : position + 1;
+            }
+        }
+    }
+
+    /**
+     * Barrier where the islands wait after every round of generations. The last island that arrives does the migrations,
+     * reports the progress and decides if the algorithm stops, while the rest of them wait.
+     */
+    private final class Migrations extends RoundBarrier {
+        private final Island[] island;
+        private final ExecutionControl control;
+        private final int[] sent; //best distribution of each island before the migrations
+        private double bestCost = Double.POSITIVE_INFINITY;
+        private int staleRounds;
+
+        Migrations(Island[] island, ExecutionControl control) {
+            super(island.length);
+            this.island = island;
+            this.control = control;
+            this.sent = new int[island.length];
+        }
+
+        boolean onRound(int round) {
+            //each island sends a copy of its best distribution to the next one, which replaces its worst one
+            //(the best ones are not replaced, so all islands send the distribution they had before the migrations)
+            if (island.length > 1) {
+                for (int i = 0; i < island.length; ++i) sent[i] = island[i].best;
+                for (int i = 0; i < island.length; ++i) {
+                    Island source = island[i], target = island[(i + 1) % island.length];
+                    target.offer(source.pool[sent[i]], source.cost[sent[i]]);
+                }
+            }
+
+            double roundBest = Double.POSITIVE_INFINITY;
+            long children = 0;
+            for (Island i : island) {
+                roundBest = Math.min(roundBest, i.cost[i.best]);
+                children += i.children;
+            }
+            staleRounds = roundBest < bestCost ? 0 : staleRounds + 1;
+            bestCost = Math.min(bestCost, roundBest);
+            control.report(bestCost, children);
+            return staleRounds >= plateauMigrations || control.shouldStop();
+        }
+    }
+}
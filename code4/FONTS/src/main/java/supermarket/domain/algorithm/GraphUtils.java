@@ -1,6 +1,7 @@
 package supermarket.domain.algorithm;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * Utility class for graph operations.
@@ -16,10 +17,10 @@ public class GraphUtils {
      * @param n dimension of result matrix
      * @return the same graph as the input, but defined as a directed adjacency matrix
      */
-    static float[][] edgeListToMatrix(ArrayList<WeightedEdge> edges, int n) {
-        float[][] matrix = new float[n][n];
+    static FlatDistanceMatrix edgeListToMatrix(ArrayList<WeightedEdge> edges, int n) {
+        FlatDistanceMatrix matrix = new FlatDistanceMatrix(n);
         for (WeightedEdge e : edges) {
-            matrix[e.u][e.v] = e.weight;
+            matrix.set(e.u, e.v, e.weight);
         }
         return matrix;
     }
@@ -29,30 +30,124 @@ public class GraphUtils {
      * @param matrix adjacency matrix that defines the graph
      * @return the same graph as the input, but defined as a list of weighted edges
      */
-    static ArrayList<WeightedEdge> matrixToEdgeList(float[][] matrix) {
+    static ArrayList<WeightedEdge> matrixToEdgeList(DistanceMatrix matrix) {
         ArrayList<WeightedEdge> edges = new ArrayList<>();
-        int n = matrix.length;
+        int n = matrix.size();
         for (int i = 0; i < n; ++i) {
-            for (int j = 0; j < matrix[i].length; ++j) {
+            for (int j = 0; j < n; ++j) {
                 if (i == j) continue;
-                edges.add(new WeightedEdge(i, j, matrix[i][j]));
+                edges.add(new WeightedEdge(i, j, matrix.get(i, j)));
             }
         }
         return edges;
     }
 
+    /**
+     * Converts a weighted graph definition from an adjacency matrix to a list of edges packed in longs, sorted by weight.
+     * Each key stores the weight (as sortable bits) in the upper 32 bits and the index u*n+v of the edge in the lower 32 bits,
+     * so no objects are created for the edges. Edges with the same weight keep the order in which the matrix is traversed.
+     * @param matrix adjacency matrix that defines the graph
+     * @param upperTriangleOnly if true, only edges (u, v) with u &lt; v are generated (enough for symmetric matrices)
+     * @return keys of all edges of the graph, sorted by weight
+     */
+    static long[] matrixToSortedEdgeKeys(DistanceMatrix matrix, boolean upperTriangleOnly) {
+        int n = matrix.size();
+        long size = upperTriangleOnly ? (long) n * (n - 1) / 2 : (long) n * (n - 1);
+        long[] keys = new long[Math.toIntExact(size)];
+        int pos = 0;
+        for (int i = 0; i < n; ++i) {
+            for (int j = upperTriangleOnly ? i + 1 : 0; j < n; ++j) {
+                if (i == j) continue;
+                keys[pos++] = ((long) sortableBits(matrix.get(i, j)) << 32) | (((long) i * n + j) & 0xFFFFFFFFL);
+            }
+        }
+        radixSortUpperBits(keys);
+        return keys;
+    }
+
+    /**
+     * Maps the bits of a float to an int whose unsigned order is the order given by Float.compare.
+     */
+    private static int sortableBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) | Integer.MIN_VALUE);
+    }
+
+    /**
+     * @return the source node (u) of a packed edge key of a graph with n nodes
+     */
+    static int edgeKeySource(long key, int n) {
+        return (int) ((key & 0xFFFFFFFFL) / n);
+    }
+
+    /**
+     * @return the destination node (v) of a packed edge key of a graph with n nodes
+     */
+    static int edgeKeyDestination(long key, int n) {
+        return (int) ((key & 0xFFFFFFFFL) % n);
+    }
+
+    /**
+     * Sorts the keys by their upper 32 bits (unsigned) with a stable LSD radix sort of 4 passes of 8 bits.
+     * Passes where all keys have the same byte are skipped.
+     */
+    private static void radixSortUpperBits(long[] keys) {
+        long[] buffer = new long[keys.length];
+        long[] from = keys, to = buffer;
+        int[] count = new int[256];
+        for (int shift = 32; shift < 64; shift += 8) {
+            Arrays.fill(count, 0);
+            for (long key : from) ++count[(int) (key >>> shift) & 0xFF];
+            if (from.length == 0 || count[(int) (from[0] >>> shift) & 0xFF] == from.length) continue;
+            for (int b = 0, sum = 0; b < 256; ++b) {
+                int c = count[b];
+                count[b] = sum;
+                sum += c;
+            }
+            for (long key : from) to[count[(int) (key >>> shift) & 0xFF]++] = key;
+            long[] temp = from;
+            from = to;
+            to = temp;
+        }
+        if (from != keys) System.arraycopy(from, 0, keys, 0, keys.length);
+    }
+
     /**
      * Inverts (x:=1/x) all values of the given matrix. Zero will be "inverted" to a considerably large number.
      * @param matrix    Matrix to invert all values.
      * @return          The same matrix, after inverting all values (same instance).
      */
     public static float[][] invertMatrixValues(float[][] matrix) {
-        for (int i = 0; i < matrix.length; ++i) {
-            for (int j = 0; j < matrix[i].length; ++j) {
-                if (matrix[i][j] != 0) matrix[i][j] = 1/matrix[i][j];
-                else matrix[i][j] = 1e9f; //"infinity"
+        for (float[] row : matrix) MatrixKernels.SELECTED.invert(row, 0, row.length);
+        return matrix;
+    }
+
+    /**
+     * Inverts (x:=1/x) all values of the given matrix stored outside the heap, as invertMatrixValues does.
+     * @param matrix    Matrix to invert all values.
+     * @return          The same matrix, after inverting all values (same instance).
+     */
+    public static OffHeapDistanceMatrix invertMatrixValues(OffHeapDistanceMatrix matrix) {
+        int n = matrix.size();
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                float value = matrix.get(i, j);
+                if (value != 0) matrix.set(i, j, 1/value);
+                else matrix.set(i, j, 1e9f); //"infinity"
             }
         }
         return matrix;
     }
+
+    /**
+     * Inverts (x:=1/x) all values of the given symmetric matrix, as invertMatrixValues does.
+     * Each value is stored once, so only half of the matrix is transformed.
+     * @param matrix    Matrix to invert all values.
+     * @return          The same matrix, after inverting all values (same instance).
+     */
+    public static SymmetricDistanceMatrix invertMatrixValues(SymmetricDistanceMatrix matrix) {
+        float[] values = matrix.values();
+        MatrixKernels.SELECTED.invert(values, 0, values.length);
+        return matrix;
+    }
 }
@@ -5,18 +5,42 @@ import supermarket.tuples.AlgorithmParameter;
 import supermarket.tuples.AlgorithmType;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
  * Class that implements the Greedy Algorithm for solving the TSP.
  * @author Dídac Dalmases Valcárcel
  */
 public class GreedyAlgorithm extends AbstractAlgorithm {
+    /** Number of starting nodes tried by a range between two progress reports. */
+    private static final int REPORT_INTERVAL = 64;
+
     boolean testAllStartingNodes = false;
+
+    /**
+     * Best order found from a range of starting nodes.
+     * @param startingNode Starting node of the order.
+     * @param cost Cost of the cycle.
+     */
+    private record StartResult(int startingNode, float cost) {
+        boolean isBetterThan(StartResult other) {
+            if (cost != other.cost) return cost < other.cost;
+            return startingNode < other.startingNode;
+        }
+    }
+
     public GreedyAlgorithm(float[][] relationMatrix) {
         super(relationMatrix);
     }
 
+    GreedyAlgorithm(DistanceMatrix distanceMatrix) {
+        super(distanceMatrix);
+    }
+
     public AlgorithmType getType() {
         return AlgorithmType.GREEDY;
     }
@@ -44,52 +68,127 @@ public class GreedyAlgorithm extends AbstractAlgorithm {
         else System.err.println("Received unknown param for \"Test all starting nodes\": " + param + ". Using default value instead.");
     }
 
-    private int findBestNext(int current, boolean[] visited) {
+    /**
+     * Finds the nearest unvisited node to current (lowest index in case of tie).
+     * The neighbor list of current is checked first: as it is sorted, its first unvisited node is the answer,
+     * and the whole row only has to be scanned when all neighbors in the list are already visited.
+     * @param row Buffer of size n for the row of current, only used with a SymmetricDistanceMatrix (null otherwise).
+     */
+    private int findBestNext(int current, boolean[] visited, NeighborLists neighborLists, float[] row) {
+        for (int rank = 0; rank < neighborLists.getK(); ++rank) {
+            int candidate = neighborLists.get(current, rank);
+            if (!visited[candidate]) {
+                return distanceMatrix.get(current, candidate) < Float.MAX_VALUE ? candidate : -1;
+            }
+        }
+
+        if (distanceMatrix instanceof FlatDistanceMatrix flat) {
+            //current is always visited, so the whole row can be scanned by the kernel
+            return MatrixKernels.SELECTED.argMin(flat.values(), current * n, visited);
+        }
+        if (distanceMatrix instanceof SymmetricDistanceMatrix symmetric) {
+            //the packed row is gathered into the buffer, so the kernel can scan it
+            symmetric.copyRow(current, row);
+            return MatrixKernels.SELECTED.argMin(row, 0, visited);
+        }
+
         float minRelation = Float.MAX_VALUE; //largest number
         int next = -1;
 
         for (int i = 0; i < n; i++) {
-            if (current != i && !visited[i] && distanceMatrix[current][i] < minRelation) {
-                minRelation = distanceMatrix[current][i];
+            if (current != i && !visited[i] && distanceMatrix.get(current, i) < minRelation) {
+                minRelation = distanceMatrix.get(current, i);
                 next = i;
             }
         }
         return next;
     }
 
+    /**
+     * @return Buffer for the rows scanned by findBestNext (null if the distance matrix doesn't need one).
+     */
+    private float[] rowBuffer() {
+        return distanceMatrix instanceof SymmetricDistanceMatrix ? new float[n] : null;
+    }
+
     int[] findOrder(int startingNode) {
-        boolean[] visited = new boolean[n];
         int[] order = new int[n];
+        findOrder(startingNode, new boolean[n], order, rowBuffer());
+        return order;
+    }
+
+    /**
+     * Builds the greedy order from a starting node using the given buffers (so they can be reused between starts).
+     * @param startingNode First node of the order.
+     * @param visited Buffer of size n, its content is overwritten.
+     * @param order Buffer of size n where the order is stored.
+     * @param row Buffer given by rowBuffer().
+     */
+    private void findOrder(int startingNode, boolean[] visited, int[] order, float[] row) {
+        NeighborLists neighborLists = getNeighborLists();
+        Arrays.fill(visited, false);
+        Arrays.fill(order, 0);
         int current = startingNode;
         order[0] = current;
         visited[current] = true;
 
         for (int i = 1; i < n; i++) {
-            int next = findBestNext(current, visited);
+            int next = findBestNext(current, visited, neighborLists, row);
             if (next != -1) {
                 order[i] = next;
                 visited[next] = true;
                 current = next;
             }
         }
-        return order;
+    }
+
+    /**
+     * Tries all starting nodes in [from, to) reusing the same buffers, until the control asks to stop
+     * (starting node 0 is always tried, so there is always a result). Progress is reported every REPORT_INTERVAL
+     * starting nodes and at the end, so the ranges don't compete for the control on every node.
+     * @return The starting node with the lowest cost (lowest node in case of tie), or null if no node has been tried.
+     */
+    private StartResult findBestStart(int from, int to, ExecutionControl control) {
+        boolean[] visited = new boolean[n];
+        int[] order = new int[n];
+        float[] row = rowBuffer();
+        StartResult best = null;
+        int unreported = 0;
+        for (int i = from; i < to; ++i) {
+            if (i != 0 && control.shouldStop()) break;
+            findOrder(i, visited, order, row);
+            StartResult result = new StartResult(i, calculateCycleCost(order));
+            if (best == null || result.isBetterThan(best)) best = result;
+            if (++unreported == REPORT_INTERVAL) {
+                control.report(best.cost(), unreported);
+                unreported = 0;
+            }
+        }
+        if (unreported > 0) control.report(best.cost(), unreported);
+        return best;
     }
 
     public int[] calculateDistribution() {
-        if (distanceMatrix.length == 0) return new int[] {};
-        if (!testAllStartingNodes) return findOrder(0);
+        return calculateDistribution(ExecutionControl.unlimited());
+    }
+
+    public int[] calculateDistribution(ExecutionControl control) {
+        if (n == 0) return new int[] {};
+        if (!testAllStartingNodes) {
+            int[] order = findOrder(0);
+            control.report(calculateCycleCost(order), 1);
+            return order;
+        }
         else {
-            int[] bestOrder = findOrder(0);
-            float bestScore = calculateCycleCost(bestOrder);
-            for (int i = 1; i < n; ++i) {
-                int[] newOrder = findOrder(i);
-                float newScore = calculateCycleCost(newOrder);
-                if (newScore < bestScore) {
-                    bestScore = newScore;
-                    bestOrder = newOrder;
-                }
-            }
-            return bestOrder;
+            getNeighborLists(); //built before starting the parallel section
+            //starting nodes are split in ranges that are tried in parallel, each range with its own buffers
+            int ranges = Math.min(n, 4 * ForkJoinPool.getCommonPoolParallelism());
+            StartResult best = IntStream.range(0, ranges).parallel()
+                    .mapToObj(r -> findBestStart((int) ((long) r * n / ranges), (int) ((long) (r + 1) * n / ranges), control))
+                    .filter(Objects::nonNull)
+                    .reduce((a, b) -> b.isBetterThan(a) ? b : a)
+                    .orElseThrow();
+            return findOrder(best.startingNode());
         }
     }
 }
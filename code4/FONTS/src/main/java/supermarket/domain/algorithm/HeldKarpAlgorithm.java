@@ -0,0 +1,161 @@
+package supermarket.domain.algorithm;
+
+import supermarket.tuples.AlgorithmType;
+
+import java.util.stream.IntStream;
+
+/**
+ * Class that implements the Held-Karp dynamic programming algorithm, which solves the TSP exactly.
+ * The cycle always starts at element 0, and the state is the set of visited elements (as a bitmask) and the last visited element.
+ * Time is O(2^n * n^2) and memory O(2^n * n), so it can only be used with small shelves.
+ */
+public class HeldKarpAlgorithm extends AbstractAlgorithm {
+    /** Maximum number of elements accepted, regardless of the memory budget. */
+    static final int MAX_ELEMENTS = 24;
+    /** Maximum amount of memory (in bytes) that the dynamic programming tables can use. */
+    static final long MEMORY_BUDGET = 256L * 1024 * 1024;
+    /** Minimum size of a layer of subsets to be computed in parallel. */
+    private static final int PARALLEL_THRESHOLD = 1 << 12;
+    /** Number of subsets computed between two checks of the control (a power of 2). */
+    private static final int CHECK_INTERVAL = 1 << 10;
+
+    public HeldKarpAlgorithm(float[][] distanceMatrix) {
+        super(distanceMatrix);
+    }
+
+    HeldKarpAlgorithm(DistanceMatrix distanceMatrix) {
+        super(distanceMatrix);
+    }
+
+    public AlgorithmType getType() {
+        return AlgorithmType.EXACT_DP;
+    }
+
+    public boolean isExact() {
+        return true;
+    }
+
+    /**
+     * Calculates the memory needed by the tables of the algorithm for a matrix of size n.
+     * Each state (subset of the n-1 elements that are not the start, last element) stores a float cost and a byte parent,
+     * and each subset has an int entry in the list of subsets sorted by size.
+     * @param n Number of elements.
+     * @return Amount of bytes needed.
+     */
+    static long memoryNeeded(int n) {
+        if (n <= 1) return 0;
+        long subsets = 1L << (n - 1);
+        return subsets * (n - 1) * (Float.BYTES + Byte.BYTES) + subsets * Integer.BYTES;
+    }
+
+    public boolean canUseAlgorithm() {
+        if (!super.canUseAlgorithm()) return false;
+        return n <= MAX_ELEMENTS && memoryNeeded(n) <= MEMORY_BUDGET;
+    }
+
+    /**
+     * Sorts all subsets of m elements by their number of elements (counting sort).
+     * @param m Number of elements.
+     * @param layerStart Output array of size m+2, layerStart[s] will be the first position of subsets of size s.
+     * @return All subsets (bitmasks), sorted by size.
+     */
+    private static int[] subsetsBySize(int m, int[] layerStart) {
+        int subsets = 1 << m;
+        for (int mask = 0; mask < subsets; ++mask) ++layerStart[Integer.bitCount(mask) + 1];
+        for (int s = 1; s <= m + 1; ++s) layerStart[s] += layerStart[s - 1];
+        int[] next = layerStart.clone();
+        int[] sorted = new int[subsets];
+        for (int mask = 0; mask < subsets; ++mask) sorted[next[Integer.bitCount(mask)]++] = mask;
+        return sorted;
+    }
+
+    public int[] calculateDistribution() {
+        return calculateDistribution(ExecutionControl.unlimited());
+    }
+
+    /**
+     * Calculates the optimal distribution within the limits of the given control.
+     * When the control asks to stop before the tables are complete, the greedy distribution from element 0
+     * is returned instead (so the result is only optimal if the control has not stopped).
+     * @param control Limits and progress listener of the calculation.
+     * @return Array of indices of size relationMatrix, circular path.
+     */
+    public int[] calculateDistribution(ExecutionControl control) {
+        int[] result = findOptimalOrder(control);
+        if (result == null) result = new GreedyAlgorithm(distanceMatrix).findOrder(0);
+        if (result.length > 0) control.report(calculateCycleCost(result), 1);
+        return result;
+    }
+
+    /**
+     * @return The optimal distribution, or null if the control has asked to stop before finding it.
+     */
+    private int[] findOptimalOrder(ExecutionControl control) {
+        if (n <= 2) {
+            int[] result = new int[n];
+            for (int i = 0; i < n; ++i) result[i] = i;
+            return result;
+        }
+        //element 0 is the start, element i+1 of the matrix corresponds to bit i
+        final int m = n - 1;
+        final float[] cost = new float[(1 << m) * m];
+        final byte[] parent = new byte[(1 << m) * m];
+        int[] layerStart = new int[m + 2];
+        int[] subsets = subsetsBySize(m, layerStart);
+
+        for (int j = 0; j < m; ++j) {
+            cost[(1 << j) * m + j] = distanceMatrix.get(0, j + 1);
+            parent[(1 << j) * m + j] = -1;
+        }
+        //each layer only depends on the previous one, so all subsets of a layer can be computed independently
+        for (int size = 2; size <= m; ++size) {
+            if (control.shouldStop()) return null;
+            IntStream layer = IntStream.range(layerStart[size], layerStart[size + 1]);
+            if (layerStart[size + 1] - layerStart[size] >= PARALLEL_THRESHOLD) layer = layer.parallel();
+            layer.forEach(p -> {
+                if ((p & (CHECK_INTERVAL - 1)) == 0 && control.shouldStop()) return; //the layer is discarded
+                int mask = subsets[p];
+                for (int j = 0; j < m; ++j) {
+                    if ((mask & (1 << j)) == 0) continue;
+                    int previousBase = (mask ^ (1 << j)) * m;
+                    float best = Float.POSITIVE_INFINITY;
+                    int bestParent = -1;
+                    for (int i = 0; i < m; ++i) {
+                        if (i == j || (mask & (1 << i)) == 0) continue;
+                        float candidate = cost[previousBase + i] + distanceMatrix.get(i + 1, j + 1);
+                        if (bestParent == -1 || candidate < best) {
+                            best = candidate;
+                            bestParent = i;
+                        }
+                    }
+                    cost[mask * m + j] = best;
+                    parent[mask * m + j] = (byte) bestParent;
+                }
+            });
+        }
+        if (control.shouldStop()) return null; //the last layer may be incomplete
+
+        //close the cycle back to element 0
+        int full = (1 << m) - 1;
+        int last = 0;
+        float best = Float.POSITIVE_INFINITY;
+        for (int j = 0; j < m; ++j) {
+            float candidate = cost[full * m + j] + distanceMatrix.get(j + 1, 0);
+            if (j == 0 || candidate < best) {
+                best = candidate;
+                last = j;
+            }
+        }
+
+        int[] result = new int[n];
+        int mask = full;
+        for (int pos = n - 1; pos >= 1; --pos) {
+            result[pos] = last + 1;
+            int previous = parent[mask * m + last];
+            mask ^= 1 << last;
+            last = previous;
+        }
+        result[0] = 0;
+        return result;
+    }
+}
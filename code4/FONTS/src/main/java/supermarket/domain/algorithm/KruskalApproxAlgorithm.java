@@ -1,31 +1,42 @@
 package supermarket.domain.algorithm;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 import supermarket.domain.algorithm.GraphUtils.WeightedEdge;
 import supermarket.tuples.AlgorithmParameter;
 import supermarket.tuples.AlgorithmType;
 
-import static supermarket.domain.algorithm.GraphUtils.matrixToEdgeList;
+import static supermarket.domain.algorithm.GraphUtils.edgeKeyDestination;
+import static supermarket.domain.algorithm.GraphUtils.edgeKeySource;
+import static supermarket.domain.algorithm.GraphUtils.matrixToSortedEdgeKeys;
 
 /**
  * Class that implements the Kruskal Algorithm for solving the TSP with 2-approximation.
  * @author Pau Martí Bisoca
  */
 public class KruskalApproxAlgorithm extends AbstractAlgorithm {
-    private final ArrayList<WeightedEdge> edges;
+    /** Minimum length of the eulerian cycle to search the best starting node in parallel. */
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+    /** Relative difference under which two costs of the best starting node search are considered equal. */
+    private static final double TIE_TOLERANCE = 1e-9;
+
+    private long[] edges; //packed edge keys sorted by weight (see GraphUtils.matrixToSortedEdgeKeys), created when first needed
     private final int[] parent, rank;
 
     private String eliminationType = "FirstStartingNode";
     public static final String[] elimTypes = {"FirstStartingNode", "BestStartingNode", "FastBestStartingNode"};
+    private boolean parallelSearch = true;
 
     public KruskalApproxAlgorithm(float[][] distanceMatrix) {
         super(distanceMatrix);
+        parent = new int[n];
+        rank = new int[n];
+    }
 
-        //create sorted undirected edge list array
-        edges = matrixToEdgeList(distanceMatrix);
-        edges.sort((o1, o2) -> Float.compare(o1.weight(), o2.weight()));
-
+    KruskalApproxAlgorithm(DistanceMatrix distanceMatrix) {
+        super(distanceMatrix);
         parent = new int[n];
         rank = new int[n];
     }
@@ -42,38 +53,53 @@ public class KruskalApproxAlgorithm extends AbstractAlgorithm {
                         The last step of this algorithm converts an eulerian path to a hamiltonian path.
                         FirstStartingNode is a greedy process that starts from node 0, follows the eulerian cycle and adds new nodes when found (default option)
                         BestStartingNode is similar to the previous process, but tries to start from all nodes, and saves the best result
-                        FastBestStartingNode removes consecutive nodes before trying to find the best starting node (faster execution)""",
+                        FastBestStartingNode removes consecutive nodes before trying to find the best starting node (kept for compatibility, BestStartingNode is now about as fast)""",
                 "{" + elimTypes[0] + "," + elimTypes[1] + "," + elimTypes[2] + "}"
         ));
+        params.add(new AlgorithmParameter(
+                "Parallel Starting Node Search",
+                "If true, the search of the best starting node (BestStartingNode and FastBestStartingNode) is split in parts that run in parallel for large shelves (default). Otherwise, it runs in a single thread.",
+                "{true, false}"
+        ));
         return params;
     }
 
     public void setParameters(List<String> parameters) {
         super.setParameters(parameters);
-        //only 1 parameter
         String param = parameters.removeFirst();
         if (!Arrays.asList(elimTypes).contains(param)) {
             System.err.println("Received unknown param for \"Edge repetition elimination type\": " + param + ". Using default value instead.");
-            return;
         }
-        eliminationType = param;
+        else eliminationType = param;
+        //second parameter is optional
+        String parallel = parameters.isEmpty() ? "true" : parameters.removeFirst();
+        if (parallel.equals("true")) parallelSearch = true;
+        else if (parallel.equals("false")) parallelSearch = false;
+        else System.err.println("Received unknown param for \"Parallel starting node search\": " + parallel + ". Using default value instead.");
     }
 
     public boolean canUseAlgorithm() {
+        return canUseAlgorithm(ExecutionControl.unlimited());
+    }
+
+    /**
+     * Checks the triangle inequality, which is O(n^3), so the control is checked after each row.
+     */
+    boolean canUseAlgorithm(ExecutionControl control) {
         if (!super.canUseAlgorithm()) return false;
-        boolean asymmetric = false;
-        //check triangle inequality and symmetry
+        boolean symmetric = distanceMatrix.isSymmetric();
+        //check triangle inequality (with a symmetric matrix, (i, j) and (j, i) are the same check)
         for (int i = 0; i < n; ++i) {
-            for (int j = 0; j < n; ++j) {
+            if (control.shouldStop()) return false;
+            for (int j = symmetric ? i + 1 : 0; j < n; ++j) {
                 if (j == i) continue;
-                if (distanceMatrix[i][j] != distanceMatrix[j][i]) asymmetric = true;
                 for (int k = 0; k < n; ++k) {
                     if (i == k || j == k) continue;
-                    if (distanceMatrix[i][j] > distanceMatrix[i][k] + distanceMatrix[k][j]) return false;
+                    if (distanceMatrix.get(i, j) > distanceMatrix.get(i, k) + distanceMatrix.get(k, j)) return false;
                 }
             }
         }
-        if (asymmetric) {
+        if (!symmetric) {
             System.err.println("Warning: given distance matrix is asymmetric. The algorithm can still be executed, but symmetry will be assumed for the creation of MST.");
         }
         return true;
@@ -98,7 +124,100 @@ public class KruskalApproxAlgorithm extends AbstractAlgorithm {
         }
     }
 
-    private ArrayList<WeightedEdge> getMST() {
+    /**
+     * Checks if the matrix defines a complete graph: all weights are finite.
+     */
+    private boolean isComplete() {
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                if (i != j && !Float.isFinite(distanceMatrix.get(i, j))) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calculates the minimum spanning tree of the graph (symmetry is assumed).
+     * Complete graphs use Prim's algorithm with arrays, which is O(n^2) and does not need the list of edges,
+     * and any other graph uses Kruskal's algorithm. Both give the same tree.
+     */
+    ArrayList<WeightedEdge> getMST() {
+        return getMST(ExecutionControl.unlimited());
+    }
+
+    /**
+     * Calculates the minimum spanning tree within the limits of the given control.
+     * When it asks to stop, Prim's algorithm connects the remaining nodes with their lightest edges to the current tree,
+     * which is still a spanning tree (but not the minimum one). Kruskal's algorithm can't be stopped.
+     */
+    ArrayList<WeightedEdge> getMST(ExecutionControl control) {
+        if (isComplete()) return getDenseMST(control);
+        return getKruskalMST();
+    }
+
+    /**
+     * Compares two edges by weight and, in case of tie, by their index u*n+v (the order used by Kruskal's algorithm).
+     * @return If the first edge goes before the second one.
+     */
+    private static boolean isLighter(float weight1, long index1, float weight2, long index2) {
+        int comparison = Float.compare(weight1, weight2);
+        return comparison < 0 || (comparison == 0 && index1 < index2);
+    }
+
+    /**
+     * Prim's algorithm for dense graphs, O(n^2). Edges are compared with the same order that Kruskal's algorithm uses,
+     * and the undirected edge between u and v is the first of (u, v) and (v, u) in that order,
+     * so all edges are different and the tree is exactly the same one that getKruskalMST gives.
+     */
+    private ArrayList<WeightedEdge> getDenseMST(ExecutionControl control) {
+        ArrayList<WeightedEdge> result = new ArrayList<>();
+        if (n == 0) return result;
+        boolean symmetric = distanceMatrix.isSymmetric();
+        boolean[] inTree = new boolean[n];
+        float[] bestWeight = new float[n]; //lightest edge that connects each node to the tree
+        long[] bestIndex = new long[n];
+
+        int last = 0;
+        inTree[0] = true;
+        for (int step = 1; step < n; ++step) {
+            //update the lightest edges with the edges of the last node added to the tree
+            int next = -1;
+            for (int v = 0; v < n; ++v) {
+                if (inTree[v]) continue;
+                float weight = distanceMatrix.get(last, v);
+                long index = (long) last * n + v;
+                if (!symmetric && isLighter(distanceMatrix.get(v, last), (long) v * n + last, weight, index)) {
+                    weight = distanceMatrix.get(v, last);
+                    index = (long) v * n + last;
+                }
+                else if (symmetric && v < last) index = (long) v * n + last;
+                if (step == 1 || isLighter(weight, index, bestWeight[v], bestIndex[v])) {
+                    bestWeight[v] = weight;
+                    bestIndex[v] = index;
+                }
+                if (next == -1 || isLighter(bestWeight[v], bestIndex[v], bestWeight[next], bestIndex[next])) next = v;
+            }
+            int u = (int) (bestIndex[next] / n), v = (int) (bestIndex[next] % n);
+            result.add(new WeightedEdge(u, v, bestWeight[next]));
+            inTree[next] = true;
+            last = next;
+            if (step + 1 < n && control.shouldStop()) {
+                //the lightest edges of the remaining nodes all go to nodes of the tree
+                for (int w = 0; w < n; ++w) {
+                    if (inTree[w]) continue;
+                    result.add(new WeightedEdge((int) (bestIndex[w] / n), (int) (bestIndex[w] % n), bestWeight[w]));
+                }
+                break;
+            }
+        }
+        return result;
+    }
+
+    private ArrayList<WeightedEdge> getKruskalMST() {
+        if (edges == null) {
+            //with a symmetric matrix, edge (v, u) always goes after (u, v) and would be discarded, so it is not generated
+            edges = matrixToSortedEdgeKeys(distanceMatrix, distanceMatrix.isSymmetric());
+        }
         for (int i = 0; i < n; ++i) {
             parent[i] = i;
             rank[i] = 0;
@@ -106,45 +225,104 @@ public class KruskalApproxAlgorithm extends AbstractAlgorithm {
 
         ArrayList<WeightedEdge> result = new ArrayList<>();
 
-        for (WeightedEdge e : edges) {
-            if (findSet(e.u()) != findSet(e.v())) {
-                result.add(e);
-                UnionSets(e.u(), e.v());
+        for (long key : edges) {
+            if (result.size() == n - 1) break; //the tree is complete
+            int u = edgeKeySource(key, n), v = edgeKeyDestination(key, n);
+            if (findSet(u) != findSet(v)) {
+                result.add(new WeightedEdge(u, v, distanceMatrix.get(u, v)));
+                UnionSets(u, v);
             }
         }
         return result;
     }
 
-    private ArrayList<Integer> getEulerianPath(boolean[][] adjacencyMatrix) { //assumes an eulerian path exists. DESTRUCTIVE for adjacencyMatrix!
-        Stack<Integer> s = new Stack<>();
-        s.push(0); //arbitrary first element
-        ArrayList<Integer> result = new ArrayList<>();
+    /**
+     * Gives the graph whose eulerian path is shortcut to find the distribution.
+     * @return Edges of the graph (the minimum spanning tree).
+     */
+    ArrayList<WeightedEdge> getEulerianGraph() {
+        return getEulerianGraph(ExecutionControl.unlimited());
+    }
+
+    /**
+     * Gives the graph whose eulerian path is shortcut to find the distribution, within the limits of the given control.
+     * @return Edges of the graph (the spanning tree of getMST).
+     */
+    ArrayList<WeightedEdge> getEulerianGraph(ExecutionControl control) {
+        return getMST(control);
+    }
 
-        while (!s.empty()) {
-            int v = s.peek();
-            int i;
-            for (i = 0; i < n; ++i) if (adjacencyMatrix[v][i]) break;
-            if (i == n) {
-                result.add(v);
-                s.pop();
+    /**
+     * Follows the edges of a connected graph from node 0 with Hierholzer's algorithm, using each edge once.
+     * The graph is stored as adjacency lists (each one sorted by neighbor, so the lowest neighbor is always followed first),
+     * so the path is found in O(n + edges). With a tree, the result is the order in which nodes are left by a depth-first search.
+     * @param graph Edges of the graph (multiple edges between the same nodes are allowed).
+     * @return Nodes of the path (edges + 1 nodes), which is an eulerian cycle if all nodes have even degree.
+     */
+    int[] getEulerianPath(ArrayList<WeightedEdge> graph) {
+        int edgeCount = graph.size();
+        //adjacency lists in a single array: neighbors of v are in adjacency[start[v]..start[v+1])
+        int[] start = new int[n + 1];
+        for (WeightedEdge e : graph) {
+            ++start[e.u() + 1];
+            ++start[e.v() + 1];
+        }
+        for (int v = 0; v < n; ++v) start[v + 1] += start[v];
+        int[] adjacency = new int[2 * edgeCount];
+        int[] edgeOf = new int[2 * edgeCount];
+        int[] next = start.clone();
+        //edges are added sorted by neighbor: first grouped by neighbor, then moved (stable) to the list of the other node
+        int[] byNeighborStart = start.clone();
+        int[] byNeighbor = new int[2 * edgeCount];
+        for (int e = 0; e < edgeCount; ++e) {
+            WeightedEdge edge = graph.get(e);
+            byNeighbor[byNeighborStart[edge.v()]++] = 2 * e; //u -> v
+            byNeighbor[byNeighborStart[edge.u()]++] = 2 * e + 1; //v -> u
+        }
+        for (int directed : byNeighbor) {
+            WeightedEdge edge = graph.get(directed / 2);
+            int from = directed % 2 == 0 ? edge.u() : edge.v();
+            int to = directed % 2 == 0 ? edge.v() : edge.u();
+            adjacency[next[from]] = to;
+            edgeOf[next[from]++] = directed / 2;
+        }
+
+        boolean[] usedEdge = new boolean[edgeCount];
+        int[] position = start.clone(); //first entry of each list that may still be unused
+        int[] stack = new int[edgeCount + 1];
+        int stackSize = 0;
+        int[] result = new int[edgeCount + 1];
+        int resultSize = 0;
+        stack[stackSize++] = 0; //arbitrary first element
+        while (stackSize > 0) {
+            int v = stack[stackSize - 1];
+            int end = start[v + 1];
+            while (position[v] < end && usedEdge[edgeOf[position[v]]]) ++position[v];
+            if (position[v] == end) {
+                result[resultSize++] = v;
+                --stackSize;
             }
             else {
-                adjacencyMatrix[v][i] = false;
-                adjacencyMatrix[i][v] = false;
-                s.push(i);
+                usedEdge[edgeOf[position[v]]] = true;
+                stack[stackSize++] = adjacency[position[v]];
             }
         }
-        return result;
+        //shorter only if some edges can not be reached from node 0
+        return resultSize == result.length ? result : Arrays.copyOf(result, resultSize);
+    }
+
+    private int[] calculateNodeOrder(int[] eulerianPath, int length, int startingNode) {
+        int offset = 0;
+        while (eulerianPath[offset] != startingNode) ++offset;
+        return calculateNodeOrderFromOffset(eulerianPath, length, offset);
     }
 
-    private int[] calculateNodeOrder(ArrayList<Integer> eulerianPath, int startingNode) {
+    private int[] calculateNodeOrderFromOffset(int[] eulerianPath, int length, int offset) {
         int[] result = new int[n];
         int pos = 0;
         boolean[] visited = new boolean[n];
-        int offset = 0;
-        while (eulerianPath.get(offset) != startingNode) ++offset;
-        for (int i = 0; i < eulerianPath.size(); ++i) {
-            int v = eulerianPath.get((i + offset)%eulerianPath.size());
+        for (int i = 0; i < length; ++i) {
+            int v = eulerianPath[(i + offset)%length];
             if (!visited[v]) {
                 visited[v] = true;
                 result[pos] = v;
@@ -155,52 +333,210 @@ public class KruskalApproxAlgorithm extends AbstractAlgorithm {
         return result;
     }
 
-    private int[] findByBestStartingNode(ArrayList<Integer> eulerianPath) {
-        int[] bestOrder = calculateNodeOrder(eulerianPath, 0);
-        float lowestCost = calculateCycleCost(bestOrder);
-        for (int i = 1; i < n; ++i) {
-            int[] possibleOrder = calculateNodeOrder(eulerianPath, i);
-            float cost = calculateCycleCost(possibleOrder);
-            if (cost < lowestCost) {
-                lowestCost = cost;
-                bestOrder = possibleOrder;
+    /**
+     * Fenwick tree over the positions of the eulerian cycle repeated twice, that stores which positions are in use.
+     */
+    private static final class PositionTree {
+        private final int[] tree;
+        private final int highestBit;
+        private int size;
+
+        PositionTree(int positions) {
+            tree = new int[positions + 1];
+            highestBit = Integer.highestOneBit(positions);
+        }
+
+        void add(int position, int delta) {
+            size += delta;
+            for (int i = position + 1; i < tree.length; i += i & -i) tree[i] += delta;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /** @return Number of positions in use lower than position. */
+        int countBelow(int position) {
+            int result = 0;
+            for (int i = position; i > 0; i -= i & -i) result += tree[i];
+            return result;
+        }
+
+        /** @return The k-th lowest position in use (k starts at 1). */
+        int get(int k) {
+            int position = 0;
+            for (int bit = highestBit; bit > 0; bit >>= 1) {
+                if (position + bit < tree.length && tree[position + bit] < k) {
+                    position += bit;
+                    k -= tree[position];
+                }
             }
+            return position;
         }
-        return bestOrder;
     }
 
-    public int[] calculateDistribution() {
-        ArrayList<WeightedEdge> mst = getMST();
-        boolean[][] adjacencyMatrix = new boolean[n][n];
-        for (WeightedEdge e : mst) {
-            adjacencyMatrix[e.u()][e.v()] = true;
-            adjacencyMatrix[e.v()][e.u()] = true;
+    /**
+     * Finds the node order with the lowest cost among the orders of all starting nodes (lowest starting node in case of tie).
+     * Starting at offset o, the order has every node at its first position in the cycle from o on.
+     * When o moves forward one position, only the node at o changes: it goes to its next position in the cycle.
+     * So, instead of calculating every order, the cycle is swept once keeping the used positions in a Fenwick tree
+     * and updating the cost of the cycle with the edges that change, which is O(|path| log |path|) in total.
+     * The sweep is split in parts that run in parallel when parallelSearch is enabled and the cycle is long enough.
+     * When the control asks to stop, only the starting nodes already evaluated are considered (node 0 always is).
+     * The result is reported to the control with the number of starting nodes evaluated.
+     */
+    private int[] findByBestStartingNode(int[] eulerianPath, int length, ExecutionControl control) {
+        if (n <= 2) { //all orders are the same cycle
+            int[] result = calculateNodeOrder(eulerianPath, length, 0);
+            control.report(calculateCycleCost(result), 1);
+            return result;
+        }
+
+        //starting offsets: first position of each node, sorted
+        int[] firstPosition = new int[n];
+        Arrays.fill(firstPosition, -1);
+        int[] offsets = new int[n];
+        int offsetCount = 0;
+        for (int p = 0; p < length; ++p) {
+            if (firstPosition[eulerianPath[p]] == -1) {
+                firstPosition[eulerianPath[p]] = p;
+                offsets[offsetCount++] = p;
+            }
+        }
+        //next position of the same node, in the cycle repeated twice
+        int[] nextPosition = new int[length];
+        int[] last = new int[n];
+        for (int p = 2 * length - 1; p >= 0; --p) {
+            int v = eulerianPath[p % length];
+            if (p < length) nextPosition[p] = last[v];
+            last[v] = p;
+        }
+
+        double[] costs = new double[n];
+        Arrays.fill(costs, Double.POSITIVE_INFINITY); //starting nodes that are not evaluated
+        int parts = 1;
+        if (parallelSearch && length >= PARALLEL_THRESHOLD) {
+            parts = Math.min(offsetCount, ForkJoinPool.getCommonPoolParallelism());
+        }
+        final int partCount = parts, startCount = offsetCount;
+        IntStream partsStream = IntStream.range(0, partCount);
+        if (partCount > 1) partsStream = partsStream.parallel();
+        int evaluated = partsStream.map(part -> sweep(eulerianPath, length, nextPosition, offsets,
+                (int) ((long) startCount * part / partCount), (int) ((long) startCount * (part + 1) / partCount), costs, control)).sum();
+
+        //costs are sums of doubles updated many times, so values that only differ in rounding are considered ties
+        double lowestCost = Double.MAX_VALUE;
+        for (double cost : costs) lowestCost = Math.min(lowestCost, cost);
+        double tolerance = TIE_TOLERANCE * Math.max(1, Math.abs(lowestCost));
+        int[] result = null;
+        for (int startingNode = 0; startingNode < n && result == null; ++startingNode) {
+            if (costs[startingNode] <= lowestCost + tolerance) {
+                result = calculateNodeOrderFromOffset(eulerianPath, length, firstPosition[startingNode]);
+            }
+        }
+        if (result == null) result = calculateNodeOrder(eulerianPath, length, 0);
+        control.report(calculateCycleCost(result), evaluated);
+        return result;
+    }
+
+    /**
+     * Sweeps the cycle from offsets[from] to offsets[to-1] (or until the control asks to stop),
+     * and stores the cost of the order of each starting node found.
+     * @return Number of starting nodes evaluated.
+     */
+    private int sweep(int[] path, int length, int[] nextPosition, int[] offsets, int from, int to, double[] costs, ExecutionControl control) {
+        if (from >= to) return 0;
+        //order at the first offset: first position of each node from that offset on
+        PositionTree positions = new PositionTree(2 * length);
+        boolean[] found = new boolean[n];
+        double cost = 0;
+        int first = -1, previous = -1;
+        for (int p = offsets[from]; p < offsets[from] + length; ++p) {
+            int v = path[p % length];
+            if (found[v]) continue;
+            found[v] = true;
+            positions.add(p, 1);
+            if (previous == -1) first = v;
+            else cost += distanceMatrix.get(previous, v);
+            previous = v;
+        }
+        cost += distanceMatrix.get(previous, first);
+
+        int offset = offsets[from];
+        int evaluated = 0;
+        for (int i = from; i < to; ++i) {
+            if (i > from && control.shouldStop()) break;
+            while (offset < offsets[i]) {
+                //the node at offset is the first of the order, and goes to its next position
+                int v = path[offset];
+                int target = nextPosition[offset];
+                positions.add(offset, -1);
+                int below = positions.countBelow(target);
+                if (below > 0 && below < positions.size()) {
+                    int oldPrevious = path[positions.get(positions.size()) % length];
+                    int oldNext = path[positions.get(1) % length];
+                    int newPrevious = path[positions.get(below) % length];
+                    int newNext = path[positions.get(below + 1) % length];
+                    cost += distanceMatrix.get(oldPrevious, oldNext) - distanceMatrix.get(oldPrevious, v) - distanceMatrix.get(v, oldNext);
+                    cost += distanceMatrix.get(newPrevious, v) + distanceMatrix.get(v, newNext) - distanceMatrix.get(newPrevious, newNext);
+                }
+                //otherwise the node stays first or goes last, which is the same cycle
+                positions.add(target, 1);
+                ++offset;
+            }
+            costs[path[offset]] = cost;
+            ++evaluated;
         }
+        return evaluated;
+    }
 
-        ArrayList<Integer> eulerianPath = getEulerianPath(adjacencyMatrix);
+    public int[] calculateDistribution() {
+        return calculateDistribution(ExecutionControl.unlimited());
+    }
+
+    /**
+     * Calculates the distribution within the limits of the given control.
+     * The minimum spanning tree (see getMST) and the search of the best starting node (BestStartingNode and FastBestStartingNode)
+     * stop when it is asked to, and the best order among the starting nodes evaluated is returned.
+     * @param control Limits and progress listener of the calculation.
+     * @return Array of indices of size relationMatrix, circular path.
+     */
+    public int[] calculateDistribution(ExecutionControl control) {
+        if (n == 0) return new int[0];
+        int[] eulerianPath = getEulerianPath(getEulerianGraph(control));
+        return shortcut(eulerianPath, control);
+    }
 
+    /**
+     * Converts the eulerian path to a node order, with the selected elimination type,
+     * and reports it to the control with the number of starting nodes evaluated.
+     */
+    private int[] shortcut(int[] eulerianPath, ExecutionControl control) {
         switch (eliminationType) {
             case "FirstStartingNode": {
-                return calculateNodeOrder(eulerianPath, eulerianPath.getFirst());
+                int[] result = calculateNodeOrder(eulerianPath, eulerianPath.length, eulerianPath[0]);
+                control.report(calculateCycleCost(result), 1);
+                return result;
             }
             case "BestStartingNode": {
                 //try all vertex ordering with different starting vertices
-                return findByBestStartingNode(eulerianPath);
+                return findByBestStartingNode(eulerianPath, eulerianPath.length, control);
             }
             case "FastBestStartingNode": {
-                ArrayList<Integer> shorterPath = new ArrayList<>();
-                shorterPath.add(eulerianPath.getFirst());
-                for (int i = 1; i < eulerianPath.size(); i++) {
-                    if (i < eulerianPath.size() - 2) {
-                        if (eulerianPath.get(i+1).equals(eulerianPath.get(i-1)) && eulerianPath.get(i+2).equals(eulerianPath.get(i))) {
+                int[] shorterPath = new int[eulerianPath.length];
+                int length = 0;
+                shorterPath[length++] = eulerianPath[0];
+                for (int i = 1; i < eulerianPath.length; i++) {
+                    if (i < eulerianPath.length - 2) {
+                        if (eulerianPath[i+1] == eulerianPath[i-1] && eulerianPath[i+2] == eulerianPath[i]) {
                             //skip this node and the next one
                             i++;
                             continue;
                         }
                     }
-                    shorterPath.add(eulerianPath.get(i));
+                    shorterPath[length++] = eulerianPath[i];
                 }
-                return findByBestStartingNode(shorterPath);
+                return findByBestStartingNode(shorterPath, length, control);
             }
             default: {
                 System.err.println("eliminationType has an unexpected value: " + eliminationType);
@@ -0,0 +1,84 @@
+package supermarket.domain.algorithm;
+
+import supermarket.tuples.AlgorithmParameter;
+import supermarket.tuples.AlgorithmType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Class that implements a Lin-Kernighan style algorithm (see LinKernighanOptimizer).
+ * It starts from the greedy distribution and improves it with chains of 2-opt moves and Or-opt moves,
+ * searched only between nearest neighbors, and then with perturbations (kicks) that are kept when they improve the cost.
+ */
+public class LinKernighanAlgorithm extends AbstractAlgorithm {
+    private static final long SEED = 1;
+    static final int DEFAULT_MAX_DEPTH = 10;
+    static final int DEFAULT_KICKS = 1000;
+
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    private int kicks = DEFAULT_KICKS;
+
+    public LinKernighanAlgorithm(float[][] distanceMatrix) {
+        super(distanceMatrix);
+    }
+
+    LinKernighanAlgorithm(DistanceMatrix distanceMatrix) {
+        super(distanceMatrix);
+    }
+
+    public AlgorithmType getType() {
+        return AlgorithmType.LIN_KERNIGHAN;
+    }
+
+    public ArrayList<AlgorithmParameter> getAvailableParameters() {
+        ArrayList<AlgorithmParameter> params = super.getAvailableParameters();
+        params.add(new AlgorithmParameter(
+                "Max Depth",
+                """
+                        Maximum number of 2-opt moves chained in a single move.
+                        - High depth: Finds improvements that need several changes at once, but each search is slower.
+                        - Low depth: Faster searches, closer to a plain 2-opt local search.
+                        Default value: 10. Recommended range: [5, 50]""",
+                "int"
+        ));
+        params.add(new AlgorithmParameter(
+                "Kicks",
+                """
+                        Number of perturbations applied after the first local optimum is found. Each one exchanges two random sections of the distribution and optimizes it again, and it is only kept if the cost improves.
+                        - More kicks: Better results, with an execution time that grows linearly.
+                        - 0 kicks: Only the local search.
+                        Default value: 1000.""",
+                "int"
+        ));
+        return params;
+    }
+
+    public void setParameters(List<String> parameters) {
+        super.setParameters(parameters);
+        maxDepth = parseIntParameter(parameters, "Max Depth", 1, Integer.MAX_VALUE, DEFAULT_MAX_DEPTH);
+        kicks = parseIntParameter(parameters, "Kicks", 0, Integer.MAX_VALUE, DEFAULT_KICKS);
+    }
+
+    public int[] calculateDistribution() {
+        return calculateDistribution(ExecutionControl.unlimited());
+    }
+
+    /**
+     * Calculates the distribution within the limits of the given control: the optimization and the perturbations stop when it asks to.
+     * The greedy distribution it starts from is also reported to the control.
+     * @param control Limits and progress listener of the calculation.
+     * @return Array of indices of size relationMatrix, circular path.
+     */
+    public int[] calculateDistribution(ExecutionControl control) {
+        NeighborLists neighborLists = getNeighborLists();
+        GreedyAlgorithm greedy = new GreedyAlgorithm(distanceMatrix);
+        greedy.setNeighborLists(neighborLists);
+        int[] initial = greedy.calculateDistribution(control);
+        LinKernighanOptimizer optimizer = new LinKernighanOptimizer(distanceMatrix, neighborLists, maxDepth);
+        int[] result = optimizer.optimize(initial, kicks, new Random(SEED), control);
+        if (n > 0 && n < 8) control.report(calculateCycleCost(result), 1);
+        return result;
+    }
+}
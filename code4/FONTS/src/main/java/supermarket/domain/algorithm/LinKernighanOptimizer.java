@@ -0,0 +1,173 @@
+package supermarket.domain.algorithm;
+
+import java.util.Random;
+
+/**
+ * Lin-Kernighan style local search, built on the tour representation of LocalSearchOptimizer (array and position index).
+ * Each move is a chain of 2-opt moves: the edge (t1, t2) is removed, t2 is joined to one of its nearest neighbors t3,
+ * and the edge (t4, t3) is removed, so (t4, t1) closes the cycle. Instead of closing it, the chain continues from t4
+ * while the partial gain is positive, and the best closed cycle of the chain is kept (later steps are undone).
+ * When no chain improves an element, Or-opt moves are tried. Elements are revisited only when their surroundings change.
+ * Chains are only used with symmetric matrices, because reversing a section changes its cost otherwise.
+ * To escape local optima, the result is perturbed with double bridge moves (two consecutive sections are exchanged)
+ * and optimized again, keeping the change only when the cost improves.
+ */
+class LinKernighanOptimizer extends LocalSearchOptimizer {
+    /** Minimum gain for a chain to be applied (avoids cycling because of rounding errors). */
+    private static final double EPSILON = 1e-5;
+    /** Maximum length of each section exchanged by a double bridge move. */
+    private static final int MAX_KICK_SECTION = 50;
+
+    private final int maxDepth;
+    //steps of the current chain, to undo them and to revisit their elements
+    private final int[] reversedFrom, reversedTo;
+    private final int[] addedFrom, addedTo, removedFrom;
+
+    /**
+     * Constructor for LinKernighanOptimizer.
+     * @param distanceMatrix The matrix representing the distances or costs between pairs of elements (non-negative).
+     * @param neighborLists Neighbor lists of the same distance matrix.
+     * @param maxDepth Maximum number of 2-opt moves of a chain.
+     */
+    LinKernighanOptimizer(DistanceMatrix distanceMatrix, NeighborLists neighborLists, int maxDepth) {
+        super(distanceMatrix, neighborLists);
+        this.maxDepth = maxDepth;
+        reversedFrom = new int[maxDepth];
+        reversedTo = new int[maxDepth];
+        addedFrom = new int[maxDepth];
+        addedTo = new int[maxDepth];
+        removedFrom = new int[maxDepth];
+    }
+
+    /**
+     * Improves the given distribution until no chain or Or-opt move improves it, and then applies the given number of
+     * double bridge perturbations, each one followed by a new optimization.
+     * @param distribution Circular distribution (permutation of all elements of the matrix).
+     * @param kicks Number of perturbations.
+     * @param random Random number generator used to choose the perturbations.
+     * @param control Limits of the calculation, the optimization and the perturbations stop when it asks to.
+     * @return New array with a distribution with equal or lower cost.
+     */
+    int[] optimize(int[] distribution, int kicks, Random random, ExecutionControl control) {
+        int[] result = optimize(distribution, control);
+        if (n < 8) return result;
+        double bestCost = cost();
+        control.report(bestCost, 1);
+        int[] best = tour.clone();
+        for (int kick = 0; kick < kicks; ++kick) {
+            if (control.shouldStop()) break;
+            doubleBridge(random);
+            processQueue(control);
+            double cost = cost();
+            if (cost < bestCost - EPSILON) {
+                bestCost = cost;
+                System.arraycopy(tour, 0, best, 0, n);
+            }
+            else {
+                System.arraycopy(best, 0, tour, 0, n);
+                for (int i = 0; i < n; ++i) position[tour[i]] = i;
+            }
+            control.report(bestCost, 1);
+        }
+        return best;
+    }
+
+    boolean improve(int a) {
+        return (symmetric && (improveChain(a, true) || improveChain(a, false))) || improveOrOpt(a);
+    }
+
+    /**
+     * Tries a chain of 2-opt moves that starts removing the edge between t1 and its next (forward) or previous element.
+     * @return If an improving chain has been applied.
+     */
+    private boolean improveChain(int t1, boolean forward) {
+        int t2 = forward ? next(t1) : prev(t1);
+        double gain = d(t1, t2); //removed weight minus added weight, without the closing edge
+        double bestGain = EPSILON;
+        int bestDepth = 0;
+        int depth = 0;
+        while (depth < maxDepth) {
+            int bestT3 = -1, bestT4 = -1;
+            double bestOpenGain = 0;
+            for (int rank = 0; rank < neighborLists.getK(); ++rank) {
+                int t3 = neighborLists.get(t2, rank);
+                double partialGain = gain - d(t2, t3);
+                if (partialGain <= EPSILON) break; //neighbors are sorted, the next ones are worse
+                int t4 = forward ? prev(t3) : next(t3);
+                if (t3 == t1 || t4 == t2 || isAdded(t4, t3, depth)) continue;
+                double openGain = partialGain + d(t4, t3);
+                if (bestT3 == -1 || openGain > bestOpenGain) {
+                    bestT3 = t3;
+                    bestT4 = t4;
+                    bestOpenGain = openGain;
+                }
+            }
+            if (bestT3 == -1) break;
+
+            //t1 t2 ... t4 t3 becomes t1 t4 ... t2 t3 (in the direction of the chain)
+            int from = forward ? position[t2] : position[bestT4];
+            int to = forward ? position[bestT4] : position[t2];
+            reverse(from, to);
+            reversedFrom[depth] = from;
+            reversedTo[depth] = to;
+            addedFrom[depth] = t2;
+            addedTo[depth] = bestT3;
+            removedFrom[depth] = bestT4;
+            //reverse may have reversed the rest of the cycle instead, which changes the direction of the chain
+            if ((forward ? next(t1) : prev(t1)) != bestT4) forward = !forward;
+            ++depth;
+            gain = bestOpenGain;
+            double closedGain = gain - d(bestT4, t1);
+            if (closedGain > bestGain) {
+                bestGain = closedGain;
+                bestDepth = depth;
+            }
+            t2 = bestT4;
+        }
+
+        for (int step = depth - 1; step >= bestDepth; --step) reverse(reversedFrom[step], reversedTo[step]);
+        if (bestDepth == 0) return false;
+        push(t1);
+        for (int step = 0; step < bestDepth; ++step) {
+            push(addedFrom[step]);
+            push(addedTo[step]);
+            push(removedFrom[step]);
+        }
+        return true;
+    }
+
+    /**
+     * @return If the edge between u and v has been added by one of the first steps of the current chain.
+     */
+    private boolean isAdded(int u, int v, int steps) {
+        for (int step = 0; step < steps; ++step) {
+            if ((addedFrom[step] == u && addedTo[step] == v) || (addedFrom[step] == v && addedTo[step] == u)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Exchanges two consecutive random sections of the cycle (a B C d becomes a C B d) and queues their endpoints.
+     */
+    private void doubleBridge(Random random) {
+        int maxSection = Math.min(MAX_KICK_SECTION, (n - 2) / 2);
+        int lengthB = 1 + random.nextInt(maxSection);
+        int lengthC = 1 + random.nextInt(maxSection);
+        int start = random.nextInt(n); //position of a
+        int[] sections = new int[lengthB + lengthC];
+        for (int s = 0; s < lengthB + lengthC; ++s) sections[s] = tour[(start + 1 + s) % n];
+        int a = tour[start], d = tour[(start + lengthB + lengthC + 1) % n];
+        for (int s = 0; s < lengthC + lengthB; ++s) {
+            int v = s < lengthC ? sections[lengthB + s] : sections[s - lengthC];
+            int p = (start + 1 + s) % n;
+            tour[p] = v;
+            position[v] = p;
+        }
+        push(a);
+        push(d);
+        push(sections[0]);
+        push(sections[lengthB - 1]);
+        push(sections[lengthB]);
+        push(sections[lengthB + lengthC - 1]);
+    }
+}
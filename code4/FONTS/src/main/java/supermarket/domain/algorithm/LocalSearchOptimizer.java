@@ -0,0 +1,336 @@
+package supermarket.domain.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Local search post-optimizer that improves a circular distribution given by any algorithm.
+ * It applies 2-opt moves (reversal of a section of the cycle) and Or-opt moves (moving a section of up to 3 elements)
+ * until no move improves the cost of the cycle.
+ * Moves are only searched between each element and its nearest neighbors (see NeighborLists),
+ * and elements whose surroundings have not changed are skipped (don't-look bits), so each pass is close to linear.
+ * 2-opt moves are only used with symmetric matrices, because reversing a section changes its cost otherwise.
+ */
+public class LocalSearchOptimizer {
+    /** Maximum length of a section moved by Or-opt. */
+    static final int MAX_SEGMENT_LENGTH = 3;
+    /** Minimum improvement for a move to be applied (avoids cycling because of rounding errors). */
+    private static final double EPSILON = 1e-5;
+    /** Number of elements taken from the queue between two checks of the control. */
+    private static final int CHECK_INTERVAL = 256;
+
+    final int n;
+    final DistanceMatrix distanceMatrix;
+    final boolean symmetric;
+    final NeighborLists neighborLists;
+    private final int[] segment = new int[MAX_SEGMENT_LENGTH];
+
+    int[] tour;
+    int[] position;
+    private int[] queue;
+    private boolean[] queued;
+    private int queueHead, queueSize;
+
+    /**
+     * Constructor for LocalSearchOptimizer.
+     * Computes the neighbor lists of every element of the distance matrix.
+     * @param distanceMatrix The matrix representing the distances or costs between pairs of elements (square, non-negative).
+     */
+    public LocalSearchOptimizer(float[][] distanceMatrix) {
+        this(DistanceMatrix.of(distanceMatrix));
+    }
+
+    /**
+     * Constructor for LocalSearchOptimizer.
+     * Computes the neighbor lists of every element of the distance matrix.
+     * @param distanceMatrix The matrix representing the distances or costs between pairs of elements (non-negative).
+     */
+    public LocalSearchOptimizer(DistanceMatrix distanceMatrix) {
+        this(distanceMatrix, new NeighborLists(distanceMatrix));
+    }
+
+    /**
+     * Constructor for LocalSearchOptimizer that reuses already computed neighbor lists.
+     * @param distanceMatrix The matrix representing the distances or costs between pairs of elements (square, non-negative).
+     * @param neighborLists Neighbor lists of the same distance matrix (for example, the ones of the algorithm that calculated the distribution).
+     */
+    public LocalSearchOptimizer(float[][] distanceMatrix, NeighborLists neighborLists) {
+        this(DistanceMatrix.of(distanceMatrix), neighborLists);
+    }
+
+    /**
+     * Constructor for LocalSearchOptimizer that reuses already computed neighbor lists.
+     * @param distanceMatrix The matrix representing the distances or costs between pairs of elements (non-negative).
+     * @param neighborLists Neighbor lists of the same distance matrix (for example, the ones of the algorithm that calculated the distribution).
+     */
+    public LocalSearchOptimizer(DistanceMatrix distanceMatrix, NeighborLists neighborLists) {
+        this.distanceMatrix = distanceMatrix;
+        this.neighborLists = neighborLists;
+        n = distanceMatrix.size();
+        symmetric = distanceMatrix.isSymmetric();
+    }
+
+    /**
+     * Improves the given distribution with 2-opt and Or-opt moves until no move improves it.
+     * @param distribution Circular distribution (permutation of all elements of the matrix).
+     * @return New array with a distribution with equal or lower cost.
+     */
+    public int[] optimize(int[] distribution) {
+        return optimize(distribution, null);
+    }
+
+    /**
+     * Like optimize, but stops early when the control asks to (the result is still a valid distribution).
+     * @param control Limits of the calculation (null for no limits).
+     */
+    int[] optimize(int[] distribution, ExecutionControl control) {
+        start(distribution);
+        if (n < 4) return tour;
+        for (int v : tour) push(v);
+        processQueue(control);
+        return tour;
+    }
+
+    /**
+     * Sets the distribution that will be improved (a copy of it), with no elements in the queue.
+     */
+    void start(int[] distribution) {
+        tour = distribution.clone();
+        position = new int[n];
+        for (int i = 0; i < n; ++i) position[tour[i]] = i;
+        queue = new int[n];
+        queued = new boolean[n];
+        queueHead = 0;
+        queueSize = 0;
+    }
+
+    /**
+     * Like start, but copies the distribution into the arrays of the previous one, so no memory is allocated
+     * after the first call (used by algorithms that improve many distributions with the same optimizer).
+     */
+    void load(int[] distribution) {
+        if (tour == null) {
+            start(distribution);
+            return;
+        }
+        System.arraycopy(distribution, 0, tour, 0, n);
+        for (int i = 0; i < n; ++i) position[tour[i]] = i;
+        Arrays.fill(queued, false);
+        queueHead = 0;
+        queueSize = 0;
+    }
+
+    /**
+     * Applies moves from the elements in the queue until it is empty (no element can improve the distribution).
+     */
+    void processQueue() {
+        processQueue(null);
+    }
+
+    /**
+     * Like processQueue, but stops early when the control asks to (the distribution may not be a local optimum then).
+     * @param control Limits of the calculation (null for no limits).
+     */
+    void processQueue(ExecutionControl control) {
+        int processed = 0;
+        while (queueSize > 0) {
+            if (control != null && ++processed % CHECK_INTERVAL == 0 && control.shouldStop()) return;
+            int a = queue[queueHead];
+            queueHead = queueHead + 1 == n ? 0 : queueHead + 1;
+            --queueSize;
+            queued[a] = false;
+            if (improve(a)) push(a); //try again from the same element
+        }
+    }
+
+    /**
+     * Tries to improve the distribution with a move that starts at element a.
+     * @return If an improving move has been applied.
+     */
+    boolean improve(int a) {
+        return (symmetric && improveTwoOpt(a)) || improveOrOpt(a);
+    }
+
+    void push(int v) {
+        if (queued[v]) return;
+        queued[v] = true;
+        int tail = queueHead + queueSize;
+        if (tail >= n) tail -= n;
+        queue[tail] = v;
+        ++queueSize;
+    }
+
+    /**
+     * Calculates the cost of the current distribution adding in double precision, so large distances
+     * (for example, the ones of unrelated products) don't hide the small ones.
+     */
+    double cost() {
+        double result = 0;
+        for (int i = 0; i < n; ++i) result += d(tour[i], tour[i + 1 == n ? 0 : i + 1]);
+        return result;
+    }
+
+    float d(int a, int b) {
+        return distanceMatrix.get(a, b);
+    }
+
+    int next(int v) {
+        int p = position[v] + 1;
+        return tour[p == n ? 0 : p];
+    }
+
+    int prev(int v) {
+        int p = position[v] - 1;
+        return tour[p < 0 ? n - 1 : p];
+    }
+
+    /**
+     * Tries 2-opt moves that add an edge between a and one of its candidates.
+     * @return If an improving move has been applied.
+     */
+    private boolean improveTwoOpt(int a) {
+        //a -> aNext ... c -> cNext becomes a -> c ... aNext -> cNext
+        int aNext = next(a);
+        for (int i = 0; i < neighborLists.getK(); ++i) {
+            int c = neighborLists.get(a, i);
+            double gain = (double) d(a, aNext) - d(a, c);
+            if (gain <= 0) break;
+            int cNext = next(c);
+            if (c == aNext || cNext == a) continue;
+            if (gain + d(c, cNext) - d(aNext, cNext) > EPSILON) {
+                reverse(position[aNext], position[c]);
+                push(a); push(aNext); push(c); push(cNext);
+                return true;
+            }
+        }
+        //aPrev -> a ... cPrev -> c becomes aPrev -> cPrev ... a -> c
+        int aPrev = prev(a);
+        for (int i = 0; i < neighborLists.getK(); ++i) {
+            int c = neighborLists.get(a, i);
+            double gain = (double) d(aPrev, a) - d(a, c);
+            if (gain <= 0) break;
+            int cPrev = prev(c);
+            if (c == aPrev || cPrev == a) continue;
+            if (gain + d(cPrev, c) - d(aPrev, cPrev) > EPSILON) {
+                reverse(position[a], position[cPrev]);
+                push(a); push(aPrev); push(c); push(cPrev);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tries to move the section of 1 to MAX_SEGMENT_LENGTH elements that starts at a next to one of a's candidates.
+     * @return If an improving move has been applied.
+     */
+    boolean improveOrOpt(int a) {
+        int first = a;
+        for (int length = 1; length <= MAX_SEGMENT_LENGTH && length + 2 <= n; ++length) {
+            int last = tour[(position[first] + length - 1) % n];
+            int before = prev(first), after = next(last);
+            double removeGain = (double) d(before, first) + d(last, after) - d(before, after);
+            if (removeGain <= EPSILON) continue;
+            for (int i = 0; i < neighborLists.getK(); ++i) {
+                int c = neighborLists.get(first, i);
+                if (d(first, c) >= removeGain) break;
+                if (inSegment(c, first, length)) continue;
+                //insertion points next to c: (c, next c) and (prev c, c)
+                for (int side = 0; side < 2; ++side) {
+                    int x = side == 0 ? c : prev(c);
+                    int y = side == 0 ? next(c) : c;
+                    if (inSegment(x, first, length) || inSegment(y, first, length)) continue;
+                    double forward = (double) d(x, first) + d(last, y) - d(x, y);
+                    if (removeGain - forward > EPSILON) {
+                        moveSegment(first, length, x, false);
+                        push(before); push(after); push(x); push(y); push(first); push(last);
+                        return true;
+                    }
+                    if (symmetric) {
+                        double reversed = (double) d(x, last) + d(first, y) - d(x, y);
+                        if (removeGain - reversed > EPSILON) {
+                            moveSegment(first, length, x, true);
+                            push(before); push(after); push(x); push(y); push(first); push(last);
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean inSegment(int v, int first, int length) {
+        int offset = position[v] - position[first];
+        if (offset < 0) offset += n;
+        return offset < length;
+    }
+
+    /**
+     * Reverses the section of the cycle between positions i and j (both included, going forward).
+     * The complementary section is reversed instead when it is shorter, which gives the same cycle in symmetric matrices.
+     */
+    void reverse(int i, int j) {
+        int length = j - i;
+        if (length < 0) length += n;
+        ++length;
+        if (2 * length > n) {
+            int newI = j + 1 == n ? 0 : j + 1;
+            j = i == 0 ? n - 1 : i - 1;
+            i = newI;
+            length = n - length;
+        }
+        for (int s = 0; s < length / 2; ++s) {
+            int a = tour[i], b = tour[j];
+            tour[i] = b;
+            position[b] = i;
+            tour[j] = a;
+            position[a] = j;
+            i = i + 1 == n ? 0 : i + 1;
+            j = j == 0 ? n - 1 : j - 1;
+        }
+    }
+
+    /**
+     * Moves the section of the given length that starts at element first so that it goes right after element x,
+     * shifting the elements in between (in the direction that needs fewer shifts).
+     */
+    void moveSegment(int first, int length, int x, boolean reversed) {
+        int start = position[first];
+        for (int s = 0; s < length; ++s) segment[s] = tour[(start + s) % n];
+        int end = (start + length - 1) % n;
+        int forwardShift = position[x] - end;
+        if (forwardShift < 0) forwardShift += n;
+        int backwardShift = start - position[x] - 1;
+        if (backwardShift < 0) backwardShift += n;
+
+        int target;
+        if (forwardShift <= backwardShift) {
+            //elements after the section move back to fill its place
+            int dst = start;
+            for (int s = 0; s < forwardShift; ++s) {
+                int src = (end + 1 + s) % n;
+                tour[dst] = tour[src];
+                position[tour[dst]] = dst;
+                dst = dst + 1 == n ? 0 : dst + 1;
+            }
+            target = dst;
+        }
+        else {
+            //elements before the section move forward to fill its place
+            int dst = end;
+            for (int s = 0; s < backwardShift; ++s) {
+                int src = (start - 1 - s + 2 * n) % n;
+                tour[dst] = tour[src];
+                position[tour[dst]] = dst;
+                dst = dst == 0 ? n - 1 : dst - 1;
+            }
+            target = (dst - length + 1 + n) % n;
+        }
+        for (int s = 0; s < length; ++s) {
+            int v = reversed ? segment[length - 1 - s] : segment[s];
+            int p = (target + s) % n;
+            tour[p] = v;
+            position[v] = p;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package supermarket.domain.algorithm;
+
+/**
+ * Loops over contiguous float values that are executed very often by the algorithms (scans of rows of a distance matrix).
+ * There are two implementations: ScalarMatrixKernels, which always works, and VectorMatrixKernels, which processes
+ * several values per instruction with the Vector API (module jdk.incubator.vector).
+ * The one used by the algorithms is selected once, at startup (see SELECTED).
+ */
+public interface MatrixKernels {
+    /** Value given to zero values by invert ("infinity"). */
+    float INVERTED_ZERO = 1e9f;
+
+    /**
+     * Kernels used by the algorithms: the vectorized ones when the Vector API is available
+     * (the JVM has been started with --add-modules jdk.incubator.vector) and the hardware has vector registers,
+     * the scalar ones otherwise.
+     */
+    MatrixKernels SELECTED = select();
+
+    private static MatrixKernels select() {
+        try {
+            return vector();
+        } catch (UnsupportedOperationException e) {
+            return scalar(); //works anywhere
+        }
+    }
+
+    /**
+     * @return Kernels implemented with plain loops.
+     */
+    static MatrixKernels scalar() {
+        return new ScalarMatrixKernels();
+    }
+
+    /**
+     * @return Kernels implemented with the Vector API.
+     * @throws UnsupportedOperationException If the Vector API is not available or the hardware has no vector registers.
+     */
+    static MatrixKernels vector() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            throw new UnsupportedOperationException("Module jdk.incubator.vector is not available");
+        }
+        try {
+            if (VectorMatrixKernels.isSupported()) return new VectorMatrixKernels();
+        } catch (LinkageError e) {
+            throw new UnsupportedOperationException("Module jdk.incubator.vector can't be used", e);
+        }
+        throw new UnsupportedOperationException("Hardware has no vector registers");
+    }
+
+    /**
+     * Finds the lowest value of a row among the columns that are not excluded.
+     * Values that are not lower than Float.MAX_VALUE (or NaN) are never chosen.
+     * @param values Array with the values of the row.
+     * @param offset Position of the first value of the row in the array.
+     * @param excluded Columns that can't be chosen (its size is the length of the row).
+     * @return Column with the lowest value (the first one in case of tie), or -1 if there is none.
+     */
+    int argMin(float[] values, int offset, boolean[] excluded);
+
+    /**
+     * Inverts (x:=1/x) the values of the range [from, to) of the array. Zero is "inverted" to INVERTED_ZERO.
+     */
+    void invert(float[] values, int from, int to);
+
+    /**
+     * @return If any value of the range [from, to) of the array is negative.
+     */
+    boolean anyNegative(float[] values, int from, int to);
+}
@@ -0,0 +1,103 @@
+package supermarket.domain.algorithm;
+
+import java.util.stream.IntStream;
+
+/**
+ * Candidate lists with the k nearest neighbors of every element of a distance matrix.
+ * Neighbors of each element are sorted by distance (ties by lowest index) and stored in a single int array,
+ * so algorithms can look for close elements in O(k) instead of scanning a whole row of the matrix.
+ * Lists are built once per distance matrix (rows are processed in parallel) and can be shared by all algorithms.
+ */
+public class NeighborLists {
+    /** Default number of neighbors stored for each element. */
+    public static final int DEFAULT_K = 10;
+    /** Minimum number of elements to build the lists in parallel. */
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    private final int n;
+    private final int k;
+    private final int[] neighbors;
+
+    /**
+     * Builds the neighbor lists of a distance matrix.
+     * @param distanceMatrix The matrix representing the distances or costs between pairs of elements.
+     * @param k Number of neighbors to store for each element (limited to n-1).
+     */
+    public NeighborLists(DistanceMatrix distanceMatrix, int k) {
+        n = distanceMatrix.size();
+        this.k = Math.max(0, Math.min(k, n - 1));
+        neighbors = new int[n * this.k];
+        IntStream rows = IntStream.range(0, n);
+        if (n >= PARALLEL_THRESHOLD) rows = rows.parallel();
+        rows.forEach(i -> fill(i, distanceMatrix));
+    }
+
+    /**
+     * Builds the neighbor lists of a distance matrix with the default number of neighbors.
+     * @param distanceMatrix The matrix representing the distances or costs between pairs of elements.
+     */
+    public NeighborLists(DistanceMatrix distanceMatrix) {
+        this(distanceMatrix, DEFAULT_K);
+    }
+
+    /**
+     * Builds the neighbor lists of a distance matrix.
+     * @param distanceMatrix The matrix representing the distances or costs between pairs of elements (square).
+     * @param k Number of neighbors to store for each element (limited to n-1).
+     */
+    public NeighborLists(float[][] distanceMatrix, int k) {
+        this(DistanceMatrix.of(distanceMatrix), k);
+    }
+
+    /**
+     * Builds the neighbor lists of a distance matrix with the default number of neighbors.
+     * @param distanceMatrix The matrix representing the distances or costs between pairs of elements (square).
+     */
+    public NeighborLists(float[][] distanceMatrix) {
+        this(distanceMatrix, DEFAULT_K);
+    }
+
+    /**
+     * Stores the k nearest elements of node (by row distance) in its list, keeping it sorted while scanning the row.
+     */
+    private void fill(int node, DistanceMatrix matrix) {
+        if (k == 0) return;
+        int base = node * k;
+        int size = 0;
+        for (int j = 0; j < n; ++j) {
+            if (j == node) continue;
+            float distance = matrix.get(node, j);
+            if (size == k && Float.compare(distance, matrix.get(node, neighbors[base + k - 1])) >= 0) continue;
+            int p = size == k ? k - 1 : size++;
+            while (p > 0 && Float.compare(matrix.get(node, neighbors[base + p - 1]), distance) > 0) {
+                neighbors[base + p] = neighbors[base + p - 1];
+                --p;
+            }
+            neighbors[base + p] = j;
+        }
+    }
+
+    /**
+     * @return Number of elements of the distance matrix.
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * @return Number of neighbors stored for each element.
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Returns a neighbor of an element.
+     * @param node Element of the distance matrix.
+     * @param rank Position in the list of neighbors (0 is the nearest one), must be lower than getK().
+     * @return The rank-th nearest element to node.
+     */
+    public int get(int node, int rank) {
+        return neighbors[node * k + rank];
+    }
+}
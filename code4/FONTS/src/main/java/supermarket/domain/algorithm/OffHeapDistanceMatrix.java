@@ -0,0 +1,146 @@
+package supermarket.domain.algorithm;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Implementation of DistanceMatrix whose values are stored outside the Java heap, in a MemorySegment (row-major order).
+ * It is meant for very large assortments: the n*n values are not scanned by the garbage collector,
+ * indices are longs (so n is not limited by the maximum size of an array) and the matrix can be mapped from a file.
+ * Files store the values as little-endian floats, without header.
+ * The memory is released with close(); the matrix can't be used after that (any access throws IllegalStateException).
+ * It can be read from any thread, so algorithms that work in parallel can use it.
+ */
+public final class OffHeapDistanceMatrix implements DistanceMatrix, AutoCloseable {
+    private static final ValueLayout.OfFloat LAYOUT = ValueLayout.JAVA_FLOAT.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final int n;
+    private final Arena arena;
+    private final MemorySegment segment;
+    private long asymmetricPairs = 0; //pairs (i, j) with a different distance from j to i, kept up to date by set
+
+    private OffHeapDistanceMatrix(int n, Arena arena, MemorySegment segment) {
+        this.n = n;
+        this.arena = arena;
+        this.segment = segment;
+    }
+
+    /**
+     * Counts the asymmetric pairs of values that the matrix has when it is built from existing values.
+     */
+    private OffHeapDistanceMatrix countAsymmetricPairs() {
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < i; ++j) {
+                if (Float.compare(get(i, j), get(j, i)) != 0) ++asymmetricPairs;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Allocates a matrix outside the heap with all distances set to 0.
+     * @param n Number of elements.
+     * @return The new matrix, which must be closed when it is no longer needed.
+     */
+    public static OffHeapDistanceMatrix allocate(int n) {
+        if (n < 0) throw new IllegalArgumentException("Matrix size can't be negative: " + n);
+        Arena arena = Arena.ofShared();
+        MemorySegment segment = arena.allocate(bytes(n), LAYOUT.byteAlignment());
+        segment.fill((byte) 0);
+        return new OffHeapDistanceMatrix(n, arena, segment);
+    }
+
+    /**
+     * Creates (or replaces) a file with a matrix of the given size with all distances set to 0, and maps it in memory.
+     * Changes done with set() are written to the file.
+     * @param file Path of the file.
+     * @param n Number of elements.
+     * @return The new matrix, which must be closed when it is no longer needed.
+     * @throws IOException If the file can't be created or mapped.
+     */
+    public static OffHeapDistanceMatrix create(Path file, int n) throws IOException {
+        if (n < 0) throw new IllegalArgumentException("Matrix size can't be negative: " + n);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            Arena arena = Arena.ofShared();
+            try {
+                return new OffHeapDistanceMatrix(n, arena, channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes(n), arena));
+            } catch (IOException | RuntimeException e) {
+                arena.close();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Maps an existing matrix file in memory, read only. The number of elements is given by the size of the file.
+     * @param file Path of the file (see create).
+     * @return The mapped matrix, which must be closed when it is no longer needed.
+     * @throws IOException If the file can't be read or its size is not the one of a square matrix of floats.
+     */
+    public static OffHeapDistanceMatrix map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int n = (int) Math.round(Math.sqrt(size / (double) Float.BYTES));
+            if (bytes(n) != size) throw new IOException("File size is not the one of a square matrix of floats: " + size);
+            Arena arena = Arena.ofShared();
+            try {
+                return new OffHeapDistanceMatrix(n, arena, channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena)).countAsymmetricPairs();
+            } catch (IOException | RuntimeException e) {
+                arena.close();
+                throw e;
+            }
+        }
+    }
+
+    private static long bytes(int n) {
+        return (long) n * n * Float.BYTES;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public float get(int i, int j) {
+        return segment.getAtIndex(LAYOUT, (long) i * n + j);
+    }
+
+    public boolean isSymmetric() {
+        return asymmetricPairs == 0;
+    }
+
+    /**
+     * Changes the distance from element i to element j.
+     * @param i Row (origin element).
+     * @param j Column (destination element).
+     * @param value New distance.
+     * @throws UnsupportedOperationException If the matrix has been mapped read only.
+     */
+    public void set(int i, int j, float value) {
+        float reverse = get(j, i);
+        float previous = get(i, j);
+        segment.setAtIndex(LAYOUT, (long) i * n + j, value); //throws before counting if the matrix is read only
+        if (i != j && Float.compare(previous, reverse) != 0) --asymmetricPairs;
+        if (i != j && Float.compare(value, reverse) != 0) ++asymmetricPairs;
+    }
+
+    /**
+     * Writes the values that have been changed to the mapped file (nothing is done if the matrix is not mapped).
+     */
+    public void force() {
+        if (segment.isMapped() && !segment.isReadOnly()) segment.force();
+    }
+
+    /**
+     * Releases the memory of the matrix (or unmaps its file). The matrix can't be used after it is closed.
+     */
+    public void close() {
+        arena.close();
+    }
+}
@@ -0,0 +1,239 @@
+package supermarket.domain.algorithm;
+
+import supermarket.domain.algorithm.SimulatedAnnealingAlgorithm.Configuration;
+import supermarket.tuples.AlgorithmParameter;
+import supermarket.tuples.AlgorithmType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Parallel tempering (replica exchange): several replicas of the annealing process run at the same time,
+ * each one in its own thread and at a fixed temperature of a geometric ladder (from a hot temperature that often accepts
+ * worse neighbors down to a cold one that accepts almost none).
+ * <p>
+ * Replicas generate neighbors with the moves of simulated annealing (see AnnealingMoves). After every round of
+ * iterations, all replicas wait at a RoundBarrier and adjacent temperatures try to exchange their replicas, with probability
+ * min(1, exp((1/T1 - 1/T2) * (cost1 - cost2))). Temperatures are exchanged instead of distributions, so an exchange is O(1).
+ * Good distributions found at high temperatures move down to the cold replicas, which improve them, while hot replicas keep exploring.
+ * <p>
+ * Each replica starts from a greedy distribution (from a random starting node) improved by local search. The temperatures are
+ * chosen from the median edge of the first of them, so the cold replicas work at the scale of the differences between
+ * good distributions (instead of the much larger ones of random distributions) and can converge.
+ * <p>
+ * Replicas don't allocate memory while they run. The exchanges use their own random generator and happen while all replicas
+ * wait, so results are deterministic. The algorithm stops when the best distribution has not improved for a number of rounds.
+ */
+public class ParallelTemperingAlgorithm extends AbstractAlgorithm {
+    static final int DEFAULT_REPLICAS = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    static final int DEFAULT_EXCHANGE_INTERVAL = 10;
+    static final int DEFAULT_PLATEAU_ROUNDS = 50;
+    /** Maximum number of replicas (each one has its own thread). */
+    static final int MAX_REPLICAS = 64;
+    /** Seed of the first replica (replica r uses SEED + r) and of the exchanges (SEED - 1). */
+    private static final long SEED = 1;
+    /** Probability of accepting a move that adds the median edge of the starting distribution, at the hottest and the coldest temperatures. */
+    private static final double HOT_ACCEPTANCE = 0.1, COLD_ACCEPTANCE = 1e-6;
+    /** Minimum number of iterations per round. */
+    private static final int MIN_SAMPLES = 100;
+    /** Minimum number of elements for the local search (with fewer elements there are no moves). */
+    private static final int MIN_LOCAL_SEARCH_SIZE = 4;
+
+    private int replicas = DEFAULT_REPLICAS;
+    private int exchangeInterval = DEFAULT_EXCHANGE_INTERVAL; //iterations per round, for each element
+    private int plateauRounds = DEFAULT_PLATEAU_ROUNDS;
+
+    public ParallelTemperingAlgorithm(float[][] distanceMatrix) {
+        super(distanceMatrix);
+    }
+
+    ParallelTemperingAlgorithm(DistanceMatrix distanceMatrix) {
+        super(distanceMatrix);
+    }
+
+    public AlgorithmType getType() {
+        return AlgorithmType.PARALLEL_TEMPERING;
+    }
+
+    public ArrayList<AlgorithmParameter> getAvailableParameters() {
+        ArrayList<AlgorithmParameter> params = super.getAvailableParameters();
+        params.add(new AlgorithmParameter(
+                "Replicas",
+                """
+                        Number of replicas, each one at a different temperature and in its own thread (between 2 and 64).
+                        - More replicas: Better results, as long as there are enough processors to run them at the same time.
+                        - Fewer replicas: Less processors used.
+                        Default value: number of available processors (between 2 and 8).""",
+                "int"
+        ));
+        params.add(new AlgorithmParameter(
+                "Exchange Interval",
+                """
+                        Iterations of each replica between two exchanges of temperatures, for each product of the distribution.
+                        Default value: 10.""",
+                "int"
+        ));
+        params.add(new AlgorithmParameter(
+                "Plateau Rounds",
+                """
+                        Number of consecutive rounds (iterations between two exchanges) without improving the best solution after which the algorithm stops.
+                        - High value: More chances to improve the solution, longer execution.
+                        - Low value: The algorithm stops as soon as the solution converges.
+                        Default value: 50.""",
+                "int"
+        ));
+        return params;
+    }
+
+    public void setParameters(List<String> parameters) {
+        super.setParameters(parameters);
+        replicas = parseIntParameter(parameters, "Replicas", 2, MAX_REPLICAS, DEFAULT_REPLICAS);
+        exchangeInterval = parseIntParameter(parameters, "Exchange Interval", 1, Integer.MAX_VALUE, DEFAULT_EXCHANGE_INTERVAL);
+        plateauRounds = parseIntParameter(parameters, "Plateau Rounds", 1, Integer.MAX_VALUE, DEFAULT_PLATEAU_ROUNDS);
+    }
+
+    public int[] calculateDistribution() {
+        return calculateDistribution(ExecutionControl.unlimited());
+    }
+
+    /**
+     * Runs the replicas until the best distribution stops improving or the control asks to stop (checked after every round).
+     * @param control Limits and progress listener of the calculation.
+     * @return Array of indices of size relationMatrix, circular path.
+     */
+    public int[] calculateDistribution(ExecutionControl control) {
+        if (n == 0) return new int[] {};
+        int count = replicas;
+        long roundIterations = Math.max(MIN_SAMPLES, (long) exchangeInterval * n);
+        Configuration moveConfiguration = Configuration.DEFAULT;
+        NeighborLists neighborLists = getNeighborLists();
+        GreedyAlgorithm greedy = new GreedyAlgorithm(distanceMatrix);
+        greedy.setNeighborLists(neighborLists);
+
+        Replica[] replica = new Replica[count];
+        for (int r = 0; r < count; ++r) {
+            replica[r] = new Replica(new AnnealingMoves(distanceMatrix, neighborLists, moveConfiguration.moves(),
+                    moveConfiguration.candidateBias()), new SplittableRandom(SEED + r), roundIterations, greedy, control);
+        }
+        //scale of the edges of a good distribution, so the cold end is cold enough to improve it
+        double edge = typicalEdge(replica[0].bestSolution);
+        if (edge == 0) return replica[0].bestSolution.clone(); //all edges are 0, so it is optimal
+        double[] temperature = new double[count]; //temperature[0] is the coldest one
+        double hottest = edge / -Math.log(HOT_ACCEPTANCE), coldest = edge / -Math.log(COLD_ACCEPTANCE);
+        for (int t = 0; t < count; ++t) temperature[t] = coldest * Math.pow(hottest / coldest, (double) t / (count - 1));
+        for (int r = 0; r < count; ++r) replica[r].temperature = temperature[r];
+
+        new Exchanges(replica, temperature, control).runWorkers(replica, "tempering-", "parallel tempering");
+
+        Replica best = replica[0];
+        for (Replica r : replica) if (r.bestCost < best.bestCost) best = r;
+        return best.bestSolution.clone();
+    }
+
+    /**
+     * Calculates the median edge of a distribution, which is not affected by a few huge distances (unrelated products).
+     * @param distribution Circular distribution.
+     * @return The median edge, or the average one if more than half of the edges are 0.
+     */
+    private double typicalEdge(int[] distribution) {
+        double[] edges = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; ++i) {
+            edges[i] = distanceMatrix.get(distribution[i], distribution[i + 1 == n ? 0 : i + 1]);
+            total += edges[i];
+        }
+        Arrays.sort(edges);
+        return edges[n / 2] > 0 ? edges[n / 2] : total / n;
+    }
+
+    /**
+     * Annealing process at a fixed temperature, which only changes when it is exchanged with another replica.
+     */
+    private final class Replica implements RoundBarrier.Worker {
+        final AnnealingMoves moves;
+        final SplittableRandom random;
+        final long roundIterations;
+        final int[] bestSolution;
+        double currentCost, bestCost;
+        double temperature; //changed by the exchanges, while the replica waits
+
+        /**
+         * Creates the replica, starting from a greedy distribution improved by local search (which stops early when the control asks to).
+         */
+        Replica(AnnealingMoves moves, SplittableRandom random, long roundIterations, GreedyAlgorithm greedy, ExecutionControl control) {
+            this.moves = moves;
+            this.random = random;
+            this.roundIterations = roundIterations;
+            moves.start(greedy.findOrder(random.nextInt(n)));
+            if (n >= MIN_LOCAL_SEARCH_SIZE) {
+                for (int v = 0; v < n; ++v) moves.push(v);
+                moves.processQueue(control);
+            }
+            currentCost = moves.cost();
+            bestCost = currentCost;
+            bestSolution = moves.tour().clone();
+        }
+
+        public void round() {
+            int[] currentSolution = moves.tour();
+            double inverseTemperature = 1 / temperature;
+            for (long i = 0; i < roundIterations; ++i) {
+                double deltaCost = moves.propose(random);
+                if (deltaCost <= 0 || AcceptanceTable.accept(deltaCost * inverseTemperature, random.nextLong())) {
+                    moves.apply();
+                    currentCost += deltaCost;
+                    if (currentCost < bestCost) {
+                        System.arraycopy(currentSolution, 0, bestSolution, 0, n);
+                        bestCost = currentCost;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Barrier where the replicas wait after every round. The last replica that arrives exchanges the temperatures,
+     * reports the progress and decides if the algorithm stops, while the rest of them wait.
+     */
+    private final class Exchanges extends RoundBarrier {
+        private final Replica[] replica;
+        private final double[] temperature;
+        private final Replica[] atTemperature; //replica at each temperature
+        private final ExecutionControl control;
+        private final SplittableRandom random = new SplittableRandom(SEED - 1);
+        private double bestCost = Double.POSITIVE_INFINITY;
+        private int staleRounds;
+
+        Exchanges(Replica[] replica, double[] temperature, ExecutionControl control) {
+            super(replica.length);
+            this.replica = replica;
+            this.temperature = temperature;
+            this.atTemperature = replica.clone();
+            this.control = control;
+        }
+
+        boolean onRound(int round) {
+            //even rounds try pairs (0, 1), (2, 3)..., odd rounds (1, 2), (3, 4)...
+            for (int t = round % 2; t + 1 < temperature.length; t += 2) {
+                Replica colder = atTemperature[t], hotter = atTemperature[t + 1];
+                //positive when the colder replica has the higher cost, so the better distribution always goes down
+                double x = (1 / temperature[t] - 1 / temperature[t + 1]) * (colder.currentCost - hotter.currentCost);
+                if (x >= 0 || AcceptanceTable.accept(-x, random.nextLong())) {
+                    atTemperature[t] = hotter;
+                    atTemperature[t + 1] = colder;
+                    hotter.temperature = temperature[t];
+                    colder.temperature = temperature[t + 1];
+                }
+            }
+
+            double roundBest = Double.POSITIVE_INFINITY;
+            for (Replica r : replica) roundBest = Math.min(roundBest, r.bestCost);
+            staleRounds = roundBest < bestCost ? 0 : staleRounds + 1;
+            bestCost = Math.min(bestCost, roundBest);
+            control.report(bestCost, replica.length * replica[0].roundIterations);
+            return staleRounds >= plateauRounds || control.shouldStop();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package supermarket.domain.algorithm;
+
+import supermarket.tuples.AlgorithmParameter;
+import supermarket.tuples.AlgorithmType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class that races all other algorithms that can be used with the distance matrix (with their default parameters)
+ * and keeps the distribution with the lowest cost.
+ * All algorithms run at the same time, each one in its own thread, and share a time budget that also limits the checks
+ * of which algorithms can be used: when it is over, they return their best distribution (see ExecutionControl).
+ * When an exact algorithm finishes within the budget, its distribution is optimal and the rest of algorithms are cancelled.
+ * The calculation always waits for all algorithms to stop, so none of them outlives it (or the distance matrix).
+ * The algorithm that gave the result of the last calculation can be consulted with getWinner().
+ */
+public class PortfolioAlgorithm extends AbstractAlgorithm {
+    static final int DEFAULT_TIME_BUDGET = 5000;
+
+    private int timeBudget = DEFAULT_TIME_BUDGET; //milliseconds
+    private volatile AlgorithmType winner;
+
+    public PortfolioAlgorithm(float[][] distanceMatrix) {
+        super(distanceMatrix);
+    }
+
+    PortfolioAlgorithm(DistanceMatrix distanceMatrix) {
+        super(distanceMatrix);
+    }
+
+    public AlgorithmType getType() {
+        return AlgorithmType.PORTFOLIO;
+    }
+
+    public ArrayList<AlgorithmParameter> getAvailableParameters() {
+        ArrayList<AlgorithmParameter> params = super.getAvailableParameters();
+        params.add(new AlgorithmParameter(
+                "Time Budget",
+                """
+                        Maximum time (in milliseconds) given to the algorithms of the portfolio. When it is over, each algorithm returns the best distribution found so far.
+                        The algorithms stop soon after it is over, and the portfolio waits for all of them before returning.
+                        Default value: 5000.""",
+                "int"
+        ));
+        return params;
+    }
+
+    public void setParameters(List<String> parameters) {
+        super.setParameters(parameters);
+        if (parameters.isEmpty()) return; //optional parameter, the current time budget is kept
+        timeBudget = parseIntParameter(parameters, "Time Budget", 1, Integer.MAX_VALUE, DEFAULT_TIME_BUDGET);
+    }
+
+    /**
+     * @return Type of the algorithm that gave the distribution of the last calculation (null if there has not been any).
+     */
+    public AlgorithmType getWinner() {
+        return winner;
+    }
+
+    /**
+     * Distribution given by one of the algorithms of the portfolio.
+     * @param index Position of the algorithm in the portfolio (used to break ties).
+     * @param optimal If the distribution is proven optimal (given by an exact algorithm that was not stopped).
+     */
+    private record Entry(int index, AlgorithmType type, int[] distribution, double cost, boolean optimal) {
+        boolean isBetterThan(Entry other) {
+            return cost < other.cost || (cost == other.cost && index < other.index);
+        }
+    }
+
+    public int[] calculateDistribution() {
+        return calculateDistribution(ExecutionControl.unlimited());
+    }
+
+    /**
+     * Races all usable algorithms within the time budget and the limits of the given control.
+     * @param control Limits and progress listener of the calculation, shared by all algorithms.
+     * @return Array of indices of size relationMatrix, circular path.
+     */
+    public int[] calculateDistribution(ExecutionControl control) {
+        if (n == 0) return new int[] {};
+        CancellationToken losers = new CancellationToken();
+        //the budget starts before the checks of which algorithms can be used, as some of them are O(n^3)
+        ExecutionControl shared = control.createChild(Duration.ofMillis(timeBudget), losers);
+        List<AbstractAlgorithm> algorithms = AlgorithmFactory.createAllAlgorithmsShared(distanceMatrix);
+        algorithms.removeIf(algorithm -> algorithm.getType() == AlgorithmType.PORTFOLIO);
+
+        //algorithms are CPU bound, so they get their own (daemon) platform threads
+        ExecutorService executor = Executors.newFixedThreadPool(algorithms.size(), Thread.ofPlatform().daemon().name("portfolio-", 0).factory());
+        CompletionService<Entry> completion = new ExecutorCompletionService<>(executor);
+        for (int i = 0; i < algorithms.size(); ++i) {
+            int index = i;
+            AbstractAlgorithm algorithm = algorithms.get(i);
+            completion.submit(() -> {
+                if (!algorithm.canUseAlgorithm(shared)) return null;
+                int[] distribution = algorithm.calculateDistribution(shared);
+                boolean optimal = algorithm.isExact() && !shared.shouldStop();
+                return new Entry(index, algorithm.getType(), distribution, algorithm.calculateCycleCost(distribution), optimal);
+            });
+        }
+
+        Entry best = null;
+        RuntimeException failure = null;
+        try {
+            for (int pending = algorithms.size(); pending > 0; --pending) {
+                Future<Entry> future = completion.take();
+                Entry entry;
+                try {
+                    entry = future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) failure = new RuntimeException("Algorithm of the portfolio failed", e.getCause());
+                    continue;
+                }
+                if (entry == null) continue; //the algorithm can't be used
+                if (best == null || entry.isBetterThan(best)) best = entry;
+                if (entry.optimal()) break;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (best == null) throw new RuntimeException("Interrupted before any algorithm of the portfolio finished", e);
+        } finally {
+            losers.cancel();
+            executor.shutdownNow();
+            executor.close(); //waits for the algorithms to stop, even if interrupted
+        }
+        if (failure != null && best == null) throw failure;
+        if (best == null) throw new RuntimeException("There are no usable algorithms for the portfolio");
+        winner = best.type();
+        return best.distribution();
+    }
+}
@@ -0,0 +1,15 @@
+package supermarket.domain.algorithm;
+
+/**
+ * Receives the progress of a running algorithm (see ExecutionControl).
+ */
+@FunctionalInterface
+public interface ProgressListener {
+    /**
+     * Called each time the algorithm reports progress. Calls are never concurrent,
+     * but they can come from any of the threads used by the algorithm.
+     * @param bestCost Cost of the best distribution found so far.
+     * @param iterations Number of iterations done so far (what an iteration is depends on the algorithm).
+     */
+    void onProgress(double bestCost, long iterations);
+}
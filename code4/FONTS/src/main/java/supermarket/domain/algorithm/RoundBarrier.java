@@ -0,0 +1,81 @@
+package supermarket.domain.algorithm;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+
+/**
+ * Barrier for algorithms whose workers run in rounds, each one in its own thread (replicas of parallel tempering,
+ * islands of the genetic algorithm). After every round, the last worker that arrives runs onRound (exchanges, migrations,
+ * progress reports) and decides if the algorithm stops, while the rest of them wait.
+ * Workers only interact in onRound, so results don't depend on thread scheduling.
+ */
+abstract class RoundBarrier extends Phaser {
+    /**
+     * Part of the algorithm that runs in its own thread.
+     */
+    interface Worker {
+        /**
+         * Prepares the worker before its first round (in its own thread).
+         */
+        default void start() {
+        }
+
+        /**
+         * Runs a round of the worker.
+         */
+        void round();
+    }
+
+    private volatile Throwable failure;
+
+    RoundBarrier(int workers) {
+        super(workers);
+    }
+
+    /**
+     * Runs after every round, while all workers wait.
+     * @param round Number of the round that has finished (starting at 0).
+     * @return If the workers must stop.
+     */
+    abstract boolean onRound(int round);
+
+    protected final boolean onAdvance(int phase, int registeredParties) {
+        return failure != null || onRound(phase);
+    }
+
+    /**
+     * Runs each worker in its own (daemon) platform thread until the barrier terminates, and waits for all of them.
+     * @param workers Workers, as many as the barrier was created for.
+     * @param threadName Prefix of the names of the threads.
+     * @param description Description of the algorithm, used for error messages.
+     * @throws RuntimeException If a worker fails or the calling thread is interrupted.
+     */
+    void runWorkers(Worker[] workers, String threadName, String description) {
+        ExecutorService executor = Executors.newFixedThreadPool(workers.length, Thread.ofPlatform().daemon().name(threadName, 0).factory());
+        try {
+            for (Worker worker : workers) executor.execute(() -> work(worker));
+            while (!isTerminated()) awaitAdvanceInterruptibly(getPhase());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            forceTermination();
+            throw new RuntimeException("Interrupted while running " + description, e);
+        } finally {
+            executor.shutdownNow();
+        }
+        if (failure != null) throw new RuntimeException("Worker of " + description + " failed", failure);
+    }
+
+    private void work(Worker worker) {
+        try {
+            worker.start();
+            do {
+                worker.round();
+            //the worker whose arrival terminates the phaser doesn't get a negative phase
+            } while (arriveAndAwaitAdvance() >= 0 && !isTerminated());
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            forceTermination();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package supermarket.domain.algorithm;
+
+/**
+ * Implementation of MatrixKernels with plain loops, used when the Vector API is not available.
+ */
+final class ScalarMatrixKernels implements MatrixKernels {
+    public int argMin(float[] values, int offset, boolean[] excluded) {
+        float minValue = Float.MAX_VALUE;
+        int result = -1;
+        for (int j = 0; j < excluded.length; ++j) {
+            if (!excluded[j] && values[offset + j] < minValue) {
+                minValue = values[offset + j];
+                result = j;
+            }
+        }
+        return result;
+    }
+
+    public void invert(float[] values, int from, int to) {
+        for (int i = from; i < to; ++i) {
+            if (values[i] != 0) values[i] = 1/values[i];
+            else values[i] = INVERTED_ZERO;
+        }
+    }
+
+    public boolean anyNegative(float[] values, int from, int to) {
+        for (int i = from; i < to; ++i) {
+            if (values[i] < 0) return true;
+        }
+        return false;
+    }
+}
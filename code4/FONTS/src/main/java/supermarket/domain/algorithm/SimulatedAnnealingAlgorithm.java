@@ -3,25 +3,171 @@ package supermarket.domain.algorithm;
 import supermarket.tuples.AlgorithmType;
 import supermarket.tuples.AlgorithmParameter;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
 
 /**
  * SimulatedAnnealing is an implementation of the Simulated Annealing optimization algorithm.
  * This class is used to find an optimal arrangement of elements that minimizes the cost function
  * based on the input distance matrix. The algorithm uses a stochastic process to escape local optima
  * by occasionally accepting less optimal solutions based on a probability that decreases over time.
+ * <p>
+ * Instances are thread-confined: all the parameters of a run are kept in an immutable {@link Configuration}
+ * owned by the instance (there is no shared mutable state), so different instances can calculate distributions
+ * concurrently, each one from its own thread.
  *
  * @author Eric Medina León
  */
 public class SimulatedAnnealingAlgorithm extends AbstractAlgorithm {
 
-    /** Initial temperature for the simulated annealing process. */
-    private static double INITIAL_TEMPERATURE = 1000;
-    /** Number of iterations per temperature level. */
-    private static double K = 600.0;
-    /** Rate at which the temperature decreases after each iteration. */
-    private static double COOLING_RATE = 0.9;
+    /** Seed of the first annealing chain, chain c uses SEED + c. */
+    private static final long SEED = 1;
+    /** Ratio of accepted worse neighbors at the starting temperature of the adaptive schedule. */
+    private static final double INITIAL_ACCEPTANCE = 0.8;
+    /** Ratio of accepted worse neighbors below which a chain is considered frozen (adaptive schedule). */
+    private static final double FROZEN_ACCEPTANCE = 0.001;
+    /** Limits of the cooling rate of the adaptive schedule. */
+    private static final double MIN_COOLING_RATE = 0.5, MAX_COOLING_RATE = 0.995;
+    /** Minimum number of moves sampled to choose the starting temperature, and of iterations per level (adaptive schedule). */
+    private static final int MIN_SAMPLES = 100;
 
-    private final Random random;
+    /**
+     * Immutable set of parameters of a simulated annealing run.
+     *
+     * @param initialTemperature Initial temperature for the simulated annealing process (fixed schedule).
+     * @param coolingRate Rate at which the temperature decreases after each temperature level (between 0 and 1),
+     *                    the adaptive schedule starts with it and changes it.
+     * @param k Number of iterations per temperature level (fixed schedule).
+     * @param chains Number of independent annealing chains, the best result of all of them is kept.
+     * @param threads Number of threads used to run the chains.
+     * @param moves Weights of the move operators used to generate neighbors.
+     * @param candidateBias Probability (between 0 and 1) that a move joins an element with one of its nearest neighbors
+     *                      instead of a random element.
+     * @param schedule Cooling schedule and stopping criterion of the chains.
+     */
+    public record Configuration(double initialTemperature, double coolingRate, double k, int chains, int threads,
+                                MoveMix moves, double candidateBias, CoolingSchedule schedule) {
+        /** Default configuration of the algorithm (with the fixed cooling schedule). */
+        public static final Configuration DEFAULT = new Configuration(1000, 0.9, 600, 1, Runtime.getRuntime().availableProcessors());
+
+        /** Default probability of joining an element with one of its nearest neighbors. */
+        public static final double DEFAULT_CANDIDATE_BIAS = 0.5;
+
+        /**
+         * Configuration with the default move operators.
+         */
+        public Configuration(double initialTemperature, double coolingRate, double k, int chains, int threads) {
+            this(initialTemperature, coolingRate, k, chains, threads, MoveMix.DEFAULT, DEFAULT_CANDIDATE_BIAS);
+        }
+
+        /**
+         * Configuration with the fixed cooling schedule, without stopping on plateaus.
+         */
+        public Configuration(double initialTemperature, double coolingRate, double k, int chains, int threads,
+                             MoveMix moves, double candidateBias) {
+            this(initialTemperature, coolingRate, k, chains, threads, moves, candidateBias, CoolingSchedule.FIXED);
+        }
+
+        public Configuration {
+            Objects.requireNonNull(moves);
+            Objects.requireNonNull(schedule);
+            if (candidateBias < 0 || candidateBias > 1) throw new IllegalArgumentException("Candidate bias must be between 0 and 1");
+            if (initialTemperature < 10) throw new IllegalArgumentException("Initial temperature must be at least 10");
+            if (coolingRate <= 0 || coolingRate >= 1) throw new IllegalArgumentException("Cooling rate must be between 0 and 1");
+            if (k <= 0) throw new IllegalArgumentException("K must be positive");
+            if (chains <= 0) throw new IllegalArgumentException("Number of chains must be positive");
+            if (threads <= 0) throw new IllegalArgumentException("Number of threads must be positive");
+        }
+    }
+
+    /**
+     * Relative weights of the move operators: each neighbor is generated by an operator chosen with probability
+     * proportional to its weight (see AnnealingMoves). Reversals are not used with asymmetric matrices.
+     *
+     * @param swap Weight of swapping the positions of two elements.
+     * @param reversal Weight of reversing a section of the cycle (2-opt move).
+     * @param insertion Weight of moving an element to another place of the cycle.
+     * @param orOpt Weight of moving a section of 2 or 3 elements to another place of the cycle.
+     */
+    public record MoveMix(int swap, int reversal, int insertion, int orOpt) {
+        /** Default weights of the move operators. */
+        public static final MoveMix DEFAULT = new MoveMix(1, 2, 1, 1);
+
+        public MoveMix {
+            if (swap < 0 || reversal < 0 || insertion < 0 || orOpt < 0) throw new IllegalArgumentException("Move weights can't be negative");
+            if ((long) swap + reversal + insertion + orOpt == 0) throw new IllegalArgumentException("At least one move weight must be positive");
+            if ((long) swap + reversal + insertion + orOpt > Integer.MAX_VALUE) throw new IllegalArgumentException("Move weights are too big");
+        }
+
+        /**
+         * Parses the weights from a comma separated list, in the order swap, reversal, insertion, or-opt (for example "1,2,1,1").
+         *
+         * @param weights List of weights.
+         * @return The parsed move mix.
+         * @throws NumberFormatException If a weight is not an integer.
+         * @throws IllegalArgumentException If the list doesn't have 4 valid weights.
+         */
+        public static MoveMix parse(String weights) {
+            String[] values = weights.split(",");
+            if (values.length != 4) throw new IllegalArgumentException("Expected 4 move weights: " + weights);
+            return new MoveMix(Integer.parseInt(values[0].trim()), Integer.parseInt(values[1].trim()),
+                    Integer.parseInt(values[2].trim()), Integer.parseInt(values[3].trim()));
+        }
+    }
+
+    /**
+     * Cooling schedule of the annealing chains.
+     * <p>
+     * The fixed schedule multiplies the temperature by the cooling rate after each level of k iterations,
+     * from the initial temperature down to 1 (worse neighbors are accepted with probability exp(-deltaCost / (k * temperature))).
+     * <p>
+     * The adaptive schedule doesn't depend on the scale of the distances: the starting temperature is chosen from the
+     * cost differences of sampled moves so that most worse neighbors are accepted, and each level has a number of
+     * iterations proportional to the number of elements. After each level, the cooling rate is lowered (faster cooling)
+     * while the ratio of accepted worse neighbors is above the target, and raised towards 1 (slower cooling) once it is below.
+     * When the chain is frozen and has not improved for half of the plateau levels, it is reheated to the temperature
+     * where the acceptance ratio reached the target.
+     * <p>
+     * A chain stops when its best solution has not improved for plateauLevels consecutive levels. The fixed schedule
+     * can disable this with 0 plateau levels, then it always runs until the final temperature.
+     *
+     * @param adaptive If the adaptive schedule is used (otherwise, the fixed one).
+     * @param targetAcceptance Ratio of accepted worse neighbors (between 0 and 1) where the adaptive schedule starts cooling slowly.
+     * @param plateauLevels Number of consecutive levels without improvement after which a chain stops
+     *                      (0 to never stop on a plateau, only with the fixed schedule).
+     * @param iterationsPerElement Iterations per level of the adaptive schedule, for each element of the distribution.
+     */
+    public record CoolingSchedule(boolean adaptive, double targetAcceptance, int plateauLevels, int iterationsPerElement) {
+        /** Fixed cooling schedule without plateau stop, the one used by the 5 and 7 parameter configurations. */
+        public static final CoolingSchedule FIXED = new CoolingSchedule(false, 0.1, 0, 50);
+        /** Adaptive cooling schedule with the default values of its parameters. */
+        public static final CoolingSchedule ADAPTIVE = new CoolingSchedule(true, 0.1, 20, 50);
+
+        public CoolingSchedule {
+            if (targetAcceptance <= 0 || targetAcceptance >= 1) throw new IllegalArgumentException("Target acceptance must be between 0 and 1");
+            if (plateauLevels < 0) throw new IllegalArgumentException("Plateau levels can't be negative");
+            if (adaptive && plateauLevels == 0) throw new IllegalArgumentException("Plateau levels must be positive with the adaptive schedule");
+            if (iterationsPerElement <= 0) throw new IllegalArgumentException("Iterations per element must be positive");
+        }
+    }
+
+    /** Names of the cooling schedules, as received by setParameters. */
+    public static final String[] coolingSchedules = {"Adaptive", "Fixed"};
+
+    /** Parameters used by the next runs of the algorithm. */
+    private Configuration configuration = Configuration.DEFAULT;
+
+    private final SplittableRandom random;
+
+    /**
+     * Result of a single annealing chain.
+     * @param solution Best solution found by the chain.
+     * @param cost Cost of the solution.
+     */
+    private record ChainResult(int[] solution, double cost) {
+    }
 
     /**
      * Constructor for SimulatedAnnealing.
@@ -30,8 +176,49 @@ public class SimulatedAnnealingAlgorithm extends AbstractAlgorithm {
      * @param distanceMatrix The matrix representing the distances or costs between pairs of elements.
      */
     public SimulatedAnnealingAlgorithm(float[][] distanceMatrix) {
+        this(distanceMatrix, Configuration.DEFAULT);
+    }
+
+    /**
+     * Constructor for SimulatedAnnealing that shares an already built distance matrix.
+     *
+     * @param distanceMatrix The matrix representing the distances or costs between pairs of elements.
+     */
+    SimulatedAnnealingAlgorithm(DistanceMatrix distanceMatrix) {
+        this(distanceMatrix, Configuration.DEFAULT);
+    }
+
+    /**
+     * Constructor for SimulatedAnnealing with a given configuration.
+     *
+     * @param distanceMatrix The matrix representing the distances or costs between pairs of elements.
+     * @param configuration Parameters of the algorithm.
+     */
+    public SimulatedAnnealingAlgorithm(float[][] distanceMatrix, Configuration configuration) {
+        super(distanceMatrix);
+        this.random = new SplittableRandom(SEED);
+        this.configuration = Objects.requireNonNull(configuration);
+    }
+
+    /**
+     * Constructor for SimulatedAnnealing that shares an already built distance matrix.
+     *
+     * @param distanceMatrix The matrix representing the distances or costs between pairs of elements.
+     * @param configuration Parameters of the algorithm.
+     */
+    SimulatedAnnealingAlgorithm(DistanceMatrix distanceMatrix, Configuration configuration) {
         super(distanceMatrix);
-        this.random = new Random(1);
+        this.random = new SplittableRandom(SEED);
+        this.configuration = Objects.requireNonNull(configuration);
+    }
+
+    /**
+     * Returns the parameters that will be used by the next runs of the algorithm.
+     *
+     * @return The current configuration.
+     */
+    public Configuration getConfiguration() {
+        return configuration;
     }
 
     /**
@@ -65,6 +252,7 @@ public class SimulatedAnnealingAlgorithm extends AbstractAlgorithm {
                         The temperature controls the algorithm ability to accept worse solutions during optimization. It starts high to allow the algorithm to explore the solution space broadly, including less optimal solutions, avoiding being trapped in local minima. As the temperature decreases, the algorithm becomes more selective, favoring better solutions.
                         - High initial temperature: Encourages extensive exploration of the solution space, but may require more iterations to converge.
                         - Low initial temperature: Limits exploration but offers a faster execution.
+                        Only used by the fixed cooling schedule (the adaptive one chooses it from the distances).
                         Default value: 1000. Recommended range: [500, 2000]""",
                 "double"
         ));
@@ -74,6 +262,7 @@ public class SimulatedAnnealingAlgorithm extends AbstractAlgorithm {
                         The cooling rate (a value between 0 and 1) determines how quickly the temperature decreases at each iteration, typically with a formula like Temperature = Temperature * Cooling_Rate.\s
                         - Slow cooling (close to 1): Allows more exhaustive exploration of the solution space, improving the probability of finding a global optimum, but increases computational time.
                         - Fast cooling (significantly less than 1): Reduces computation time but risks missing the global optimum due to insufficient exploration.
+                        The adaptive cooling schedule starts with this rate and changes it depending on the ratio of accepted worse solutions.
                         Default value: 0.9. Recommended range: [0.80, 0.99]""",
                 "double"
         ));
@@ -83,9 +272,81 @@ public class SimulatedAnnealingAlgorithm extends AbstractAlgorithm {
                         Represents the number of iterations per temperature level. Determines how many candidate solutions are evaluated at each temperature level before reducing the temperature. This parameter directly controls the depth of exploration at a given temperature.
                         - High K: Allows the algorithm to exhaustively explore the solution space, increases the probability of escaping local minima but significantly increases computation time.
                         - Low K: Reduces the number of iterations at each temperature level, increases the risk of getting stuck in local minima but offers a quicker execution.
+                        Only used by the fixed cooling schedule (see Iterations per Element).
                         Default value: 600. Recommended range: [200, 1000]""",
                 "double"
         ));
+        params.add(new AlgorithmParameter(
+                "Chains",
+                """
+                        Number of independent annealing chains. Each chain starts from a different random solution (with its own deterministic seed) and the best result of all chains is kept.
+                        - More chains: Better results, the chains are run in parallel so the execution time grows slowly while there are free threads.
+                        - One chain: Single run of the algorithm.
+                        Default value: 1. Recommended range: [1, number of available processors]""",
+                "int"
+        ));
+        params.add(new AlgorithmParameter(
+                "Threads",
+                """
+                        Number of threads used to run the annealing chains in parallel (never more than the number of chains).
+                        Default value: number of available processors.""",
+                "int"
+        ));
+        params.add(new AlgorithmParameter(
+                "Move Weights",
+                """
+                        Relative weights of the operators used to generate neighbors, as a comma separated list in the order swap, reversal, insertion, or-opt.
+                        - Swap: two elements exchange their positions.
+                        - Reversal: a section of the cycle is reversed (not used with asymmetric relations).
+                        - Insertion: an element is moved to another place of the cycle.
+                        - Or-opt: a section of 2 or 3 elements is moved to another place of the cycle.
+                        Reversals and insertions improve circular distributions faster than swaps, so fewer iterations are needed.
+                        Default value: 1,2,1,1.""",
+                "int list"
+        ));
+        params.add(new AlgorithmParameter(
+                "Candidate Bias",
+                """
+                        Probability (a value between 0 and 1) that a move places an element next to one of its nearest neighbors instead of next to a random element.
+                        - High bias: Moves concentrate on promising changes, faster convergence.
+                        - Low bias: More diverse moves, broader exploration.
+                        Default value: 0.5.""",
+                "double"
+        ));
+        params.add(new AlgorithmParameter(
+                "Cooling Schedule",
+                """
+                        How the temperature decreases.
+                        Adaptive chooses the initial temperature from the distances, uses a number of iterations per level proportional to the number of products, cools faster while many worse solutions are accepted and slower afterwards, and reheats when it gets stuck
+                        Fixed goes from the initial temperature down to 1, multiplying it by the cooling rate after each level of K iterations (default option)""",
+                "{" + coolingSchedules[0] + "," + coolingSchedules[1] + "}"
+        ));
+        params.add(new AlgorithmParameter(
+                "Target Acceptance",
+                """
+                        Ratio of accepted worse solutions (a value between 0 and 1) below which the adaptive cooling schedule starts cooling slowly.
+                        - High target: Slow cooling starts earlier, better results but longer execution.
+                        - Low target: Faster execution, most of the time is spent close to the final solution.
+                        Default value: 0.1.""",
+                "double"
+        ));
+        params.add(new AlgorithmParameter(
+                "Plateau Levels",
+                """
+                        Number of consecutive temperature levels without improving the best solution after which the algorithm stops.
+                        With the fixed cooling schedule, 0 disables it and the algorithm runs until the final temperature.
+                        - High value: More chances to improve the solution, longer execution.
+                        - Low value: The algorithm stops as soon as the solution converges.
+                        Default value: 20 with the adaptive cooling schedule, 0 with the fixed one.""",
+                "int"
+        ));
+        params.add(new AlgorithmParameter(
+                "Iterations per Element",
+                """
+                        Iterations of each temperature level of the adaptive cooling schedule, for each product of the distribution.
+                        Default value: 50.""",
+                "int"
+        ));
         return params;
     }
 
@@ -96,46 +357,116 @@ public class SimulatedAnnealingAlgorithm extends AbstractAlgorithm {
      */
     public void setParameters(List<String> parameters) {
         super.setParameters(parameters);
+        double initialTemperature = Configuration.DEFAULT.initialTemperature();
+        double coolingRate = Configuration.DEFAULT.coolingRate();
+        double k = Configuration.DEFAULT.k();
         String param;
         for (int i = 0; i < 3; i++) {
             param = parameters.removeFirst();
             String paramName;
-            if (i == 0) {
-                paramName = "Initial Temperature";
-                INITIAL_TEMPERATURE = 1000;
-            }
-            else if (i == 1) {
-                COOLING_RATE = 0.9;
-                paramName = "Cooling Rate";
-            }
-            else {
-                K = 600;
-                paramName = "K";
-            }
+            if (i == 0) paramName = "Initial Temperature";
+            else if (i == 1) paramName = "Cooling Rate";
+            else paramName = "K";
             try {
                 double value = Double.parseDouble(param);
                 if (i == 0) {
                     if (value < 10) {
                         System.err.println("Received invalid value for " + paramName + ". Using default value instead.");
                     }
-                    else INITIAL_TEMPERATURE = value;
+                    else initialTemperature = value;
                 }
                 else if (i == 1) {
                     if (value <= 0 || value >= 1) {
                         System.err.println("Received invalid value for " + paramName + ". Using default value instead.");
                     }
-                    else COOLING_RATE = value;
+                    else coolingRate = value;
                 }
                 else {
                     if (value <= 0) {
                         System.err.println("Received invalid value for " + paramName + ". Using default value instead.");
                     }
-                    else K = value;
+                    else k = value;
                 }
             } catch (NumberFormatException e) {
                 System.err.println("Received non-numeric value for " + paramName + ". Using default value instead.");
             }
         }
+        int chains = parseIntParameter(parameters, "Chains", 1, Integer.MAX_VALUE, Configuration.DEFAULT.chains());
+        int threads = parseIntParameter(parameters, "Threads", 1, Integer.MAX_VALUE, Configuration.DEFAULT.threads());
+        MoveMix moves = parseMoveMix(parameters.isEmpty() ? null : parameters.removeFirst());
+        double candidateBias = parseCandidateBias(parameters.isEmpty() ? null : parameters.removeFirst());
+        CoolingSchedule schedule = parseCoolingSchedule(parameters);
+        configuration = new Configuration(initialTemperature, coolingRate, k, chains, threads, moves, candidateBias, schedule);
+    }
+
+    /**
+     * Parses the weights of the move operators.
+     *
+     * @param param Received value (null if it has not been given).
+     * @return The parsed weights, or the default ones.
+     */
+    private static MoveMix parseMoveMix(String param) {
+        if (param == null) return MoveMix.DEFAULT;
+        try {
+            return MoveMix.parse(param);
+        } catch (NumberFormatException e) {
+            System.err.println("Received non-numeric value for Move Weights. Using default value instead.");
+        } catch (IllegalArgumentException e) {
+            System.err.println("Received invalid value for Move Weights. Using default value instead.");
+        }
+        return MoveMix.DEFAULT;
+    }
+
+    /**
+     * Parses the probability of joining an element with one of its nearest neighbors.
+     *
+     * @param param Received value (null if it has not been given).
+     * @return The parsed probability, or the default one.
+     */
+    private static double parseCandidateBias(String param) {
+        if (param == null) return Configuration.DEFAULT_CANDIDATE_BIAS;
+        try {
+            double value = Double.parseDouble(param);
+            if (value >= 0 && value <= 1) return value;
+            System.err.println("Received invalid value for Candidate Bias. Using default value instead.");
+        } catch (NumberFormatException e) {
+            System.err.println("Received non-numeric value for Candidate Bias. Using default value instead.");
+        }
+        return Configuration.DEFAULT_CANDIDATE_BIAS;
+    }
+
+    /**
+     * Parses the parameters of the cooling schedule. Missing parameters (older inputs) use the values of the fixed schedule.
+     *
+     * @param parameters Remaining parameters, the ones of the cooling schedule are removed.
+     * @return The parsed cooling schedule (with default values for the missing or invalid parameters).
+     */
+    private static CoolingSchedule parseCoolingSchedule(List<String> parameters) {
+        boolean adaptive = CoolingSchedule.FIXED.adaptive();
+        if (!parameters.isEmpty()) {
+            String param = parameters.removeFirst();
+            if (!Arrays.asList(coolingSchedules).contains(param)) {
+                System.err.println("Received unknown param for \"Cooling Schedule\": " + param + ". Using default value instead.");
+            }
+            else adaptive = param.equals(coolingSchedules[0]);
+        }
+        CoolingSchedule defaults = adaptive ? CoolingSchedule.ADAPTIVE : CoolingSchedule.FIXED;
+        double targetAcceptance = defaults.targetAcceptance();
+        if (!parameters.isEmpty()) {
+            String param = parameters.removeFirst();
+            try {
+                double value = Double.parseDouble(param);
+                if (value > 0 && value < 1) targetAcceptance = value;
+                else System.err.println("Received invalid value for Target Acceptance. Using default value instead.");
+            } catch (NumberFormatException e) {
+                System.err.println("Received non-numeric value for Target Acceptance. Using default value instead.");
+            }
+        }
+        int plateauLevels = parseIntParameter(parameters, "Plateau Levels",
+                adaptive ? 1 : 0, Integer.MAX_VALUE, defaults.plateauLevels());
+        int iterationsPerElement = parseIntParameter(parameters, "Iterations per Element",
+                1, Integer.MAX_VALUE, defaults.iterationsPerElement());
+        return new CoolingSchedule(adaptive, targetAcceptance, plateauLevels, iterationsPerElement);
     }
 
     /**
@@ -144,6 +475,16 @@ public class SimulatedAnnealingAlgorithm extends AbstractAlgorithm {
      * @return A randomized ArrayList representing the initial solution.
      */
     public ArrayList<Integer> generateInitialSolution() {
+        return generateInitialSolution(random);
+    }
+
+    /**
+     * Generates an initial solution by creating a randomized list of element indices.
+     *
+     * @param random Random generator used to shuffle the solution.
+     * @return A randomized ArrayList representing the initial solution.
+     */
+    private ArrayList<Integer> generateInitialSolution(RandomGenerator random) {
         ArrayList<Integer> solution = new ArrayList<>();
         for (int i = 0; i < n; i++) {
             solution.add(i);
@@ -153,66 +494,144 @@ public class SimulatedAnnealingAlgorithm extends AbstractAlgorithm {
     }
 
     /**
-     * Generates a random neighboring solution by swapping two elements in the current solution.
+     * Executes the Simulated Annealing algorithm to find an optimal distribution of elements.
+     * Runs the configured number of independent chains (in parallel when there is more than one) and keeps the best result.
+     * Ties are broken by the lowest chain index, so results do not depend on thread scheduling.
      *
-     * @param solution The current solution represented as an int array.
-     * @return A new int array representing a neighboring solution.
+     * @return An int array representing the optimal distribution of elements found by the algorithm.
      */
-    private int[] generateRandomNeighbor(int[] solution) {
-        int[] neighbor = solution.clone();
-        int pos1 = random.nextInt(neighbor.length);
-        int pos2 = random.nextInt(neighbor.length);
-        // Swap two elements in the solution
-        int temp = neighbor[pos1];
-        neighbor[pos1] = neighbor[pos2];
-        neighbor[pos2] = temp;
-        return neighbor;
+    public int[] calculateDistribution() {
+        return calculateDistribution(ExecutionControl.unlimited());
     }
 
     /**
-     * Calculates the acceptance probability of a new solution based on the change in cost and current temperature.
+     * Executes the Simulated Annealing algorithm within the limits of the given control.
+     * Each chain checks the control after every temperature level, reports its best cost and stops when it is asked to.
      *
-     * @param deltaCost The difference in cost between the new solution and the current solution.
-     * @param temperature The current temperature in the simulated annealing process.
-     * @return The acceptance probability of the new solution.
+     * @param control Limits and progress listener of the calculation.
+     * @return An int array representing the best distribution of elements found by the algorithm.
      */
-    private double acceptanceProbability(double deltaCost, double temperature) {
-        return Math.min(1.0, Math.exp(-deltaCost / (K*temperature)));
+    public int[] calculateDistribution(ExecutionControl control) {
+        if (n == 0) return new int[] {};
+        Configuration run = configuration; //the whole run uses the same parameters
+        NeighborLists neighborLists = run.candidateBias() > 0 ? getNeighborLists() : null;
+        if (run.chains() == 1) return runChain(SEED, run, neighborLists, control).solution();
+
+        List<Callable<ChainResult>> tasks = new ArrayList<>();
+        for (int c = 0; c < run.chains(); ++c) {
+            long seed = SEED + c;
+            tasks.add(() -> runChain(seed, run, neighborLists, control));
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.min(run.threads(), run.chains()));
+        try {
+            ChainResult best = null;
+            for (var result : pool.invokeAll(tasks)) {
+                ChainResult chainResult = result.get();
+                if (best == null || chainResult.cost() < best.cost()) best = chainResult;
+            }
+            return best.solution();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running simulated annealing chains", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Simulated annealing chain failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
     }
 
     /**
-     * Executes the Simulated Annealing algorithm to find an optimal distribution of elements.
+     * Runs a single annealing chain.
      * The process begins with a random solution and iteratively attempts to find better solutions.
+     * Each neighbor (a move of one of the operators of the configuration, see AnnealingMoves) is scored incrementally
+     * and only applied when it is accepted, so evaluating it costs O(1) instead of a full evaluation of the cycle.
+     * A worse neighbor is accepted with probability exp(-deltaCost / temperature), decided with AcceptanceTable,
+     * and the temperature changes after each level as given by the cooling schedule (see CoolingSchedule).
+     * Each chain has its own SplittableRandom (not synchronized), seeded with the seed of the chain.
      *
-     * @return An int array representing the optimal distribution of elements found by the algorithm.
+     * @param seed Seed of the random generator of the chain.
+     * @param run Parameters of the run.
+     * @param neighborLists Neighbor lists of the distance matrix (null if moves are not biased to them).
+     * @param control Limits and progress listener of the calculation.
+     * @return The best solution found by the chain and its cost.
      */
-    public int[] calculateDistribution() {
-        ArrayList<Integer> initialSolutionList = generateInitialSolution();
-        int[] currentSolution = initialSolutionList.stream().mapToInt(i -> i).toArray();
-        double currentCost = calculateCycleCost(currentSolution);
+    private ChainResult runChain(long seed, Configuration run, NeighborLists neighborLists, ExecutionControl control) {
+        SplittableRandom random = new SplittableRandom(seed);
+        ArrayList<Integer> initialSolutionList = generateInitialSolution(random);
+        AnnealingMoves moves = new AnnealingMoves(distanceMatrix, neighborLists, run.moves(), run.candidateBias());
+        moves.start(initialSolutionList.stream().mapToInt(i -> i).toArray());
+        int[] currentSolution = moves.tour();
+        double currentCost = moves.cost();
 
         int[] bestSolution = currentSolution.clone();
         double bestCost = currentCost;
 
-        double temperature = INITIAL_TEMPERATURE;
-        while (temperature > 1.0) {
-            for (int i = 0; i < K; i++) {
-                int[] newSolution = generateRandomNeighbor(currentSolution);
-                double newCost = calculateCycleCost(newSolution);
-                double deltaCost = newCost - currentCost;
+        CoolingSchedule schedule = run.schedule();
+        //the temperature includes k in the fixed schedule, so acceptance is the same as with a temperature without it
+        double temperature, finalTemperature;
+        long levelIterations;
+        if (schedule.adaptive()) {
+            //accepts INITIAL_ACCEPTANCE of the worse neighbors with the median cost difference
+            temperature = moves.medianWorseDelta(random, Math.max(MIN_SAMPLES, n)) / -Math.log(INITIAL_ACCEPTANCE);
+            //no worse neighbor was sampled (for example, all the distances are equal)
+            if (temperature <= 0) temperature = run.initialTemperature();
+            finalTemperature = 0;
+            levelIterations = Math.max(MIN_SAMPLES, (long) schedule.iterationsPerElement() * n);
+        }
+        else {
+            temperature = run.k() * run.initialTemperature();
+            finalTemperature = run.k();
+            levelIterations = (long) Math.ceil(run.k());
+        }
+        double coolingRate = run.coolingRate();
+        double reheatTemperature = 0; //temperature where the acceptance ratio reached the target (0 until then)
+        int staleLevels = 0;
+        while (temperature > finalTemperature) {
+            double inverseTemperature = 1 / temperature;
+            long worse = 0, acceptedWorse = 0;
+            boolean improved = false;
+            for (long i = 0; i < levelIterations; i++) {
+                double deltaCost = moves.propose(random);
+                boolean accepted = deltaCost <= 0;
+                if (deltaCost > 0) {
+                    ++worse;
+                    accepted = AcceptanceTable.accept(deltaCost * inverseTemperature, random.nextLong());
+                    if (accepted) ++acceptedWorse;
+                }
 
-                if (deltaCost < 0 || acceptanceProbability(deltaCost, temperature) > random.nextDouble()) {
-                    currentSolution = newSolution;
-                    currentCost = newCost;
+                if (accepted) {
+                    moves.apply();
+                    currentCost += deltaCost;
 
                     if (currentCost < bestCost) {
-                        bestSolution = currentSolution.clone();
+                        System.arraycopy(currentSolution, 0, bestSolution, 0, n);
                         bestCost = currentCost;
+                        improved = true;
                     }
                 }
             }
-            temperature *= COOLING_RATE;
+            control.report(bestCost, levelIterations);
+            if (control.shouldStop()) break;
+            staleLevels = improved ? 0 : staleLevels + 1;
+            if (schedule.plateauLevels() > 0 && staleLevels >= schedule.plateauLevels()) break; //converged
+            if (!schedule.adaptive()) {
+                temperature *= coolingRate;
+                continue;
+            }
+
+            double acceptance = worse == 0 ? 0 : (double) acceptedWorse / worse;
+            if (acceptance > schedule.targetAcceptance()) coolingRate = Math.max(MIN_COOLING_RATE, coolingRate * coolingRate);
+            else {
+                if (reheatTemperature == 0) reheatTemperature = temperature;
+                coolingRate = Math.min(MAX_COOLING_RATE, 1 - (1 - coolingRate) / 2);
+            }
+            //halfway to the plateau, but never right after a level that improved the best distribution
+            if (acceptance < FROZEN_ACCEPTANCE && staleLevels == Math.max(1, schedule.plateauLevels() / 2) && reheatTemperature > 0) {
+                temperature = reheatTemperature; //stuck, escape from the current local optimum
+                coolingRate = run.coolingRate();
+            }
+            else temperature *= coolingRate;
         }
-        return bestSolution;
+        return new ChainResult(bestSolution, calculateCycleCost(bestSolution)); //exact cost, without accumulated rounding errors
     }
 }
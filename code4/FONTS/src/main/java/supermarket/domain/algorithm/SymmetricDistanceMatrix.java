@@ -0,0 +1,86 @@
+package supermarket.domain.algorithm;
+
+/**
+ * Implementation of DistanceMatrix for symmetric distances, which only stores the upper triangle (diagonal included)
+ * packed in a single float array, so it needs half the memory of a FlatDistanceMatrix.
+ * The distance from i to j is always the same as the distance from j to i.
+ */
+public final class SymmetricDistanceMatrix implements DistanceMatrix {
+    private final int n;
+    private final float[] values;
+    private final int[] rowBase; //position of (i, j) is rowBase[i] + j, for i <= j
+
+    /**
+     * Creates a symmetric matrix of the given size with all distances set to 0.
+     * @param n Number of elements.
+     */
+    public SymmetricDistanceMatrix(int n) {
+        if (n < 0) throw new IllegalArgumentException("Matrix size can't be negative: " + n);
+        long size = (long) n * (n + 1) / 2;
+        if (size > Integer.MAX_VALUE) throw new IllegalArgumentException("Matrix is too big to be stored in a single array: " + n);
+        this.n = n;
+        values = new float[(int) size];
+        rowBase = new int[n];
+        int start = 0;
+        for (int i = 0; i < n; ++i) {
+            rowBase[i] = start - i; //row i stores columns i..n-1
+            start += n - i;
+        }
+    }
+
+    /**
+     * Creates a symmetric matrix with a copy of the upper triangle of the given one.
+     * @param matrix Square symmetric matrix of distances.
+     * @throws IllegalArgumentException If the matrix is not square or not symmetric.
+     */
+    public SymmetricDistanceMatrix(float[][] matrix) {
+        this(matrix.length);
+        for (int i = 0; i < n; ++i) {
+            if (matrix[i].length != n) throw new IllegalArgumentException("Distance matrix must be square");
+            for (int j = i; j < n; ++j) {
+                if (Float.compare(matrix[i][j], matrix[j][i]) != 0) throw new IllegalArgumentException("Distance matrix must be symmetric");
+                values[rowBase[i] + j] = matrix[i][j];
+            }
+        }
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public float get(int i, int j) {
+        return values[rowBase[Math.min(i, j)] + Math.max(i, j)];
+    }
+
+    /**
+     * @return Array where the packed upper triangle is stored, for the kernels of MatrixKernels.
+     */
+    float[] values() {
+        return values;
+    }
+
+    /**
+     * Copies row i of the full matrix: columns before i are gathered from the rows above, the rest are contiguous.
+     * @param i Row (origin element).
+     * @param row Array of size n where the distances from i are stored.
+     */
+    void copyRow(int i, float[] row) {
+        for (int j = 0; j < i; ++j) row[j] = values[rowBase[j] + i];
+        System.arraycopy(values, rowBase[i] + i, row, i, n - i);
+    }
+
+    public boolean isSymmetric() {
+        return true;
+    }
+
+    /**
+     * Changes the distance between elements i and j (in both directions).
+     * @param i First element.
+     * @param j Second element.
+     * @param value New distance.
+     */
+    public void set(int i, int j, float value) {
+        if (i <= j) values[rowBase[i] + j] = value;
+        else values[rowBase[j] + i] = value;
+    }
+}
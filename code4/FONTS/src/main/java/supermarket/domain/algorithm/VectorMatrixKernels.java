@@ -0,0 +1,78 @@
+package supermarket.domain.algorithm;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implementation of MatrixKernels with the Vector API (module jdk.incubator.vector), which processes as many values
+ * per instruction as the vector registers of the hardware can hold. The values that don't fill a whole vector
+ * at the end of a range are processed one by one. The results are the same as the ones of ScalarMatrixKernels.
+ * This class can only be loaded when the module is available (see MatrixKernels.SELECTED).
+ */
+final class VectorMatrixKernels implements MatrixKernels {
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    /**
+     * @return If the hardware has vectors of more than one float (otherwise there is nothing to gain).
+     */
+    static boolean isSupported() {
+        return SPECIES.length() > 1;
+    }
+
+    public int argMin(float[] values, int offset, boolean[] excluded) {
+        int length = excluded.length;
+        int bound = SPECIES.loopBound(length);
+        //first pass: lowest value, excluded columns count as Float.MAX_VALUE (which is never chosen)
+        FloatVector minValues = FloatVector.broadcast(SPECIES, Float.MAX_VALUE);
+        int j = 0;
+        for (; j < bound; j += SPECIES.length()) {
+            FloatVector row = FloatVector.fromArray(SPECIES, values, offset + j);
+            VectorMask<Float> candidates = VectorMask.fromArray(SPECIES, excluded, j).not()
+                    .and(row.compare(VectorOperators.LT, Float.MAX_VALUE));
+            minValues = minValues.min(row.blend(Float.MAX_VALUE, candidates.not()));
+        }
+        float minValue = minValues.reduceLanes(VectorOperators.MIN);
+        for (; j < length; ++j) {
+            if (!excluded[j] && values[offset + j] < minValue) minValue = values[offset + j];
+        }
+        if (minValue == Float.MAX_VALUE) return -1;
+
+        //second pass: first column with the lowest value
+        for (j = 0; j < bound; j += SPECIES.length()) {
+            FloatVector row = FloatVector.fromArray(SPECIES, values, offset + j);
+            VectorMask<Float> found = row.compare(VectorOperators.EQ, minValue)
+                    .andNot(VectorMask.fromArray(SPECIES, excluded, j));
+            if (found.anyTrue()) return j + found.firstTrue();
+        }
+        for (; j < length; ++j) {
+            if (!excluded[j] && values[offset + j] == minValue) return j;
+        }
+        return -1; //not reachable
+    }
+
+    public void invert(float[] values, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            FloatVector v = FloatVector.fromArray(SPECIES, values, i);
+            VectorMask<Float> zero = v.compare(VectorOperators.EQ, 0);
+            FloatVector.broadcast(SPECIES, 1).div(v).blend(INVERTED_ZERO, zero).intoArray(values, i);
+        }
+        for (; i < to; ++i) {
+            if (values[i] != 0) values[i] = 1/values[i];
+            else values[i] = INVERTED_ZERO;
+        }
+    }
+
+    public boolean anyNegative(float[] values, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            if (FloatVector.fromArray(SPECIES, values, i).compare(VectorOperators.LT, 0).anyTrue()) return true;
+        }
+        for (; i < to; ++i) {
+            if (values[i] < 0) return true;
+        }
+        return false;
+    }
+}
@@ -2,7 +2,11 @@ package supermarket.domain.controllers;
 
 import supermarket.domain.algorithm.AbstractAlgorithm;
 import supermarket.domain.algorithm.AlgorithmFactory;
+import supermarket.domain.algorithm.DistanceMatrix;
 import supermarket.domain.algorithm.GraphUtils;
+import supermarket.domain.algorithm.LocalSearchOptimizer;
+import supermarket.domain.algorithm.OffHeapDistanceMatrix;
+import supermarket.domain.algorithm.SymmetricDistanceMatrix;
 import supermarket.domain.relations.Relations;
 import supermarket.domain.relations.RelationsTickets;
 import supermarket.exceptions.ExceptionProductNotExistsWithOption;
@@ -10,6 +14,7 @@ import supermarket.tuples.AlgorithmType;
 import supermarket.tuples.ProductInfo;
 
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * DomainController class is the main controller of the system.
@@ -17,6 +22,10 @@ import java.util.*;
  * @author Rubén Palà Vacas
  */
 public class DomainController {
+    /**
+     * Minimum number of products of a shelf for its distance matrix to be stored outside the heap.
+     */
+    static final int OFF_HEAP_THRESHOLD = 4096;
     /**
      * Current relations between the products of the system.
      */
@@ -372,18 +381,48 @@ public class DomainController {
      * @return Returns a set of AlgorithmType that can be used to calculate a distribution.
      */
     public Set<AlgorithmType> getAvailableAlgorithms(String storeName, int shelfId) {
-        float[][] relationMatrix = GraphUtils.invertMatrixValues(currentRelations.getRelationMatrix(getPlaceableProductOfShelf(storeName, shelfId)));
-        List<AbstractAlgorithm> algorithms = AlgorithmFactory.getAllUsableAlgorithms(relationMatrix);
-        Set<AlgorithmType> availableAlgorithms = new HashSet<>();
-        for (AbstractAlgorithm algorithm : algorithms) availableAlgorithms.add(algorithm.getType());
-        return availableAlgorithms;
+        return withDistanceMatrix(storeName, shelfId, distanceMatrix -> {
+            List<AbstractAlgorithm> algorithms = AlgorithmFactory.getAllUsableAlgorithmsShared(distanceMatrix);
+            Set<AlgorithmType> availableAlgorithms = new HashSet<>();
+            for (AbstractAlgorithm algorithm : algorithms) availableAlgorithms.add(algorithm.getType());
+            return availableAlgorithms;
+        });
+    }
+
+    /**
+     * Builds the distance matrix of the placeable products of a shelf and applies the given action to it.
+     * Matrices of shelves with at least OFF_HEAP_THRESHOLD products are stored outside the heap, and released after the action.
+     * Otherwise, symmetric relations are stored as a SymmetricDistanceMatrix (half of the memory and of the work to build it).
+     * @param storeName Name of the store that offers products.
+     * @param shelfId   ID of the shelf that will get the products stored in.
+     * @param action    Action that uses the distance matrix (it must not keep any reference to it).
+     * @return Result of the action.
+     */
+    private <T> T withDistanceMatrix(String storeName, int shelfId, Function<DistanceMatrix, T> action) {
+        Set<Integer> products = getPlaceableProductOfShelf(storeName, shelfId);
+        //TODO allow more ways to convert from relation matrix to distance matrix
+        if (products.size() < OFF_HEAP_THRESHOLD && currentRelations.isSymmetric()) {
+            SymmetricDistanceMatrix distanceMatrix = new SymmetricDistanceMatrix(products.size());
+            currentRelations.exportRelationMatrix(new ArrayList<>(products), distanceMatrix); //same order as getRelationMatrix
+            return action.apply(GraphUtils.invertMatrixValues(distanceMatrix));
+        }
+        if (products.size() < OFF_HEAP_THRESHOLD) {
+            return action.apply(DistanceMatrix.of(GraphUtils.invertMatrixValues(currentRelations.getRelationMatrix(products))));
+        }
+        try (OffHeapDistanceMatrix distanceMatrix = OffHeapDistanceMatrix.allocate(products.size())) {
+            currentRelations.exportRelationMatrix(new ArrayList<>(products), distanceMatrix); //same order as getRelationMatrix
+            return action.apply(GraphUtils.invertMatrixValues(distanceMatrix));
+        }
     }
 
-    private int[] getDistributionShelf(String storeName, int shelfId, AlgorithmType algorithmType, List<String> algorithmParameters) {
-        float[][] distanceMatrix = GraphUtils.invertMatrixValues(currentRelations.getRelationMatrix(getPlaceableProductOfShelf(storeName, shelfId))); //TODO allow more ways to convert from relation matrix to distance matrix
-        AbstractAlgorithm algorithm = AlgorithmFactory.createAlgorithm(algorithmType, distanceMatrix);
-        algorithm.setParameters(algorithmParameters);
-        return algorithm.calculateDistribution(); //TODO be able to decide what to do if amount of products is different from shelf size (default: ignore extra products)
+    private int[] getDistributionShelf(String storeName, int shelfId, AlgorithmType algorithmType, List<String> algorithmParameters, boolean localSearch) {
+        return withDistanceMatrix(storeName, shelfId, distanceMatrix -> {
+            AbstractAlgorithm algorithm = AlgorithmFactory.createAlgorithmShared(algorithmType, distanceMatrix);
+            algorithm.setParameters(algorithmParameters);
+            int[] distribution = algorithm.calculateDistribution(); //TODO be able to decide what to do if amount of products is different from shelf size (default: ignore extra products)
+            if (localSearch) distribution = new LocalSearchOptimizer(distanceMatrix, algorithm.getNeighborLists()).optimize(distribution);
+            return distribution;
+        });
     }
 
     /**
@@ -394,8 +433,21 @@ public class DomainController {
      * @param algorithmParameters   Specific parameters for the chosen algorithm type.
      */
     public void calculateDistributionShelf(String storeName, int shelfId, AlgorithmType algorithmType, List<String> algorithmParameters) {
+        calculateDistributionShelf(storeName, shelfId, algorithmType, algorithmParameters, false);
+    }
+
+    /**
+     * Calculates a distribution of products for the specified shelf using the specified algorithm with given parameters,
+     * optionally improving the result of the algorithm with local search (2-opt and Or-opt moves).
+     * @param storeName             Name of the store that contains the shelf.
+     * @param shelfId               ID of the shelf that will get filled with products.
+     * @param algorithmType         Type of algorithm to use to calculate distribution with most relation possible.
+     * @param algorithmParameters   Specific parameters for the chosen algorithm type.
+     * @param localSearch           If true, the distribution given by the algorithm is improved with LocalSearchOptimizer.
+     */
+    public void calculateDistributionShelf(String storeName, int shelfId, AlgorithmType algorithmType, List<String> algorithmParameters, boolean localSearch) {
         ctrlStore.clearShelf(storeName, shelfId);
-        int[] productsOfShelf = getDistributionShelf(storeName, shelfId, algorithmType, new ArrayList<>(algorithmParameters));
+        int[] productsOfShelf = getDistributionShelf(storeName, shelfId, algorithmType, new ArrayList<>(algorithmParameters), localSearch);
         ArrayList<Integer> arrayPlaceableProducts = new ArrayList<>(getPlaceableProductOfShelf(storeName, shelfId));
         ProductInfo[] productInfosOfShelf = new ProductInfo[productsOfShelf.length];
         for (int i = 0; i < productsOfShelf.length; ++i) {
@@ -411,10 +463,22 @@ public class DomainController {
      * @param algorithmParameters   Specific parameters for the chosen algorithm type.
      */
     public void calculateDistribution(String storeName, AlgorithmType algorithmType, List<String> algorithmParameters) {
+        calculateDistribution(storeName, algorithmType, algorithmParameters, false);
+    }
+
+    /**
+     * Calculates a distribution of products for all shelves of a store using the specified algorithm with given parameters,
+     * optionally improving the result of the algorithm on each shelf with local search (2-opt and Or-opt moves).
+     * @param storeName             Name of the store.
+     * @param algorithmType         Type of algorithm to use to calculate distribution with most relation possible.
+     * @param algorithmParameters   Specific parameters for the chosen algorithm type.
+     * @param localSearch           If true, the distribution of each shelf is improved with LocalSearchOptimizer.
+     */
+    public void calculateDistribution(String storeName, AlgorithmType algorithmType, List<String> algorithmParameters, boolean localSearch) {
         Set<Integer> shelfIds = ctrlStore.getShelfIds(storeName);
         for (int shelfId : shelfIds) ctrlStore.clearShelf(storeName, shelfId); //clear all shelves before starting to calculate distribution one by one.
         for (int shelfId : shelfIds) {
-            calculateDistributionShelf(storeName, shelfId, algorithmType, new ArrayList<>(algorithmParameters));
+            calculateDistributionShelf(storeName, shelfId, algorithmType, new ArrayList<>(algorithmParameters), localSearch);
         }
     }
 
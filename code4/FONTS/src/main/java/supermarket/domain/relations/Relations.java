@@ -1,5 +1,7 @@
 package supermarket.domain.relations;
 
+import supermarket.domain.algorithm.OffHeapDistanceMatrix;
+import supermarket.domain.algorithm.SymmetricDistanceMatrix;
 import supermarket.domain.controllers.ProductController;
 
 import java.util.*;
@@ -18,6 +20,12 @@ public class Relations {
      */
     final LinkedHashMap<Integer, LinkedHashMap<Integer,Float>> relations;
 
+    /**
+     * If the relation from each product to another one is always the same as the opposite relation.
+     * It is checked when a matrix is read, and modify keeps it (both directions are always written).
+     */
+    private boolean symmetric = true;
+
     /**
      * Constructor of Relations class to use for the tickets version.
      * @param productController Product controller of the relation.
@@ -61,6 +69,50 @@ public class Relations {
         return matrix;
     }
 
+    /**
+     * Fills a matrix stored outside the heap with values from the relation map, so no float[][] matrix has to be created
+     * (used for very large assortments).
+     * @param barcodes Order to follow in the matrix (barcodes[0] goes to row 0).
+     * @param matrix Matrix of size barcodes.size() that receives the values.
+     */
+    public void exportRelationMatrix(ArrayList<Integer> barcodes, OffHeapDistanceMatrix matrix) {
+        if (matrix.size() != barcodes.size()) throw new IllegalArgumentException("Matrix size must be the number of barcodes");
+        for (int i = 0; i < barcodes.size(); i++) {
+            LinkedHashMap<Integer, Float> innerRelations = relations.get(barcodes.get(i));
+            for (int j = 0; j < barcodes.size(); j++) {
+                matrix.set(i, j, i != j ? innerRelations.getOrDefault(barcodes.get(j), 0.0f) : 0.0f);
+            }
+        }
+    }
+
+    /**
+     * Fills a symmetric matrix with values from the relation map. Only one direction of each relation is read,
+     * and the matrix needs half the memory of a float[][] matrix.
+     * @param barcodes Order to follow in the matrix (barcodes[0] goes to row 0).
+     * @param matrix Matrix of size barcodes.size() that receives the values.
+     * @throws IllegalStateException If the relations are not symmetric (see isSymmetric).
+     */
+    public void exportRelationMatrix(ArrayList<Integer> barcodes, SymmetricDistanceMatrix matrix) {
+        if (!symmetric) throw new IllegalStateException("Relations are not symmetric");
+        if (matrix.size() != barcodes.size()) throw new IllegalArgumentException("Matrix size must be the number of barcodes");
+        for (int i = 0; i < barcodes.size(); i++) {
+            LinkedHashMap<Integer, Float> innerRelations = relations.get(barcodes.get(i));
+            matrix.set(i, i, 0.0f);
+            for (int j = i + 1; j < barcodes.size(); j++) {
+                matrix.set(i, j, innerRelations.getOrDefault(barcodes.get(j), 0.0f));
+            }
+        }
+    }
+
+    /**
+     * Indicates if the relations are symmetric: the relation from each product to another one is the same as the opposite one.
+     * Relations built from tickets or with modify always are, and the ones read from a matrix are if the matrix is symmetric.
+     * @return If the relations are symmetric.
+     */
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
     /**
      * Gets relationMatrix.
      * @param barcodes Order to follow from the user.
@@ -77,10 +129,12 @@ public class Relations {
      */
     public void readMatrix(float[][] relationMatrix, ArrayList<Integer> barcodes) {
         relations.clear();
+        symmetric = true;
         for (int i = 0; i < barcodes.size(); i++) {
             LinkedHashMap<Integer,Float> innerRelations = new LinkedHashMap<>();
             for (int j = 0; j < barcodes.size(); j++) {
                 if (i != j) innerRelations.put(barcodes.get(j),relationMatrix[i][j]);
+                if (relationMatrix[i][j] != relationMatrix[j][i]) symmetric = false;
             }
             relations.put(barcodes.get(i),innerRelations);
         }
@@ -4,4 +4,11 @@ public enum AlgorithmType {
     GREEDY,
     KRUSKAL_APPROX,
     SIMULATED_ANNEALING,
+    EXACT_DP,
+    CHRISTOFIDES,
+    LIN_KERNIGHAN,
+    PORTFOLIO,
+    PARALLEL_TEMPERING,
+    GENETIC,
+    ANT_COLONY,
 }
@@ -16,10 +16,12 @@ public class TestRunnerDomain {
             System.out.println("\u001B[31m" + "Test failed" + "\u001B[0m");
     }
     public static void main(String[] args) {
-        Reflections reflections = new Reflections("supermarket.tests", new SubTypesScanner(false));
+        Reflections reflections = new Reflections("supermarket.tests", "supermarket.domain.algorithm", new SubTypesScanner(false));
         Set<Class<?>> testClasses = reflections.getSubTypesOf(Object.class);
 
         for (Class<?> testClass : testClasses) {
+            //shared helpers, base classes and the classes of the domain are not test classes
+            if (!testClass.getSimpleName().endsWith("Test")) continue;
             Result result = JUnitCore.runClasses(testClass);
 
             System.out.println("Running tests for: " + testClass.getName());
@@ -0,0 +1,62 @@
+package supermarket.domain.algorithm;
+
+import org.junit.Test;
+import supermarket.domain.algorithm.SimulatedAnnealingAlgorithm.MoveMix;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+import static supermarket.tests.TestMatrices.assertPermutation;
+
+/**
+ * Unit tests for the moves of simulated annealing, which are package-private.
+ */
+public class AnnealingMovesTest {
+    private static float[][] randomIntegerMatrix(int n, long seed, boolean symmetric) {
+        //integer distances, so the sums are exact and any difference is an error of the deltas
+        Random random = new Random(seed);
+        float[][] matrix = new float[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                if (i == j) continue;
+                if (symmetric && j < i) matrix[i][j] = matrix[j][i];
+                else matrix[i][j] = 1 + random.nextInt(100);
+            }
+        }
+        return matrix;
+    }
+
+    @Test
+    public void testSwapDeltaMatchesRecomputation() {
+        int adjacent = 0, wrapAround = 0;
+        for (int n = 2; n <= 12; ++n) {
+            for (boolean symmetric : new boolean[]{true, false}) {
+                AnnealingMoves moves = new AnnealingMoves(DistanceMatrix.of(randomIntegerMatrix(n, n, symmetric)), null, new MoveMix(1, 0, 0, 0), 0);
+                int[] initial = new int[n];
+                for (int i = 0; i < n; ++i) initial[i] = i;
+                moves.start(initial);
+                SplittableRandom random = new SplittableRandom(n);
+                double cost = moves.cost();
+                for (int s = 0; s < 500; ++s) {
+                    int[] before = moves.tour().clone();
+                    cost += moves.propose(random);
+                    moves.apply();
+                    assertEquals("Accumulated cost should match the recomputed cost (n = " + n + ")", moves.cost(), cost, 1e-6);
+
+                    int first = -1, last = -1;
+                    for (int i = 0; i < n; ++i) {
+                        if (before[i] == moves.tour()[i]) continue;
+                        if (first == -1) first = i;
+                        last = i;
+                    }
+                    if (first != -1 && last == first + 1) ++adjacent;
+                    if (first == 0 && last == n - 1 && n > 2) ++wrapAround;
+                }
+                assertPermutation(n, moves.tour());
+            }
+        }
+        assertTrue("Swaps of adjacent positions should be tested", adjacent > 0);
+        assertTrue("Swaps across the end of the distribution should be tested", wrapAround > 0);
+    }
+}
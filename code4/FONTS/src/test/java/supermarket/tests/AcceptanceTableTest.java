@@ -0,0 +1,35 @@
+package supermarket.tests;
+
+import org.junit.Test;
+import supermarket.domain.algorithm.AcceptanceTable;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class AcceptanceTableTest {
+    @Test
+    public void testSameDecisionsAsExponential() {
+        SplittableRandom random = new SplittableRandom(5);
+        for (int i = 0; i < 1_000_000; ++i) {
+            double x = random.nextDouble() * 10;
+            long bits = random.nextLong();
+            assertEquals("Decision should be the one of exp(-x) > u for x = " + x,
+                    Math.exp(-x) > AcceptanceTable.uniform(bits), AcceptanceTable.accept(x, bits));
+        }
+    }
+
+    @Test
+    public void testLimits() {
+        assertTrue("No increase of cost should always be accepted", AcceptanceTable.accept(0, -1L));
+        assertFalse("Huge increase of cost should never be accepted", AcceptanceTable.accept(1000, 0L));
+        assertTrue("Any increase of cost should be accepted when u is 0", AcceptanceTable.accept(100, 0L));
+    }
+
+    @Test
+    public void testUniform() {
+        assertEquals("Lowest value", 0, AcceptanceTable.uniform(0L), 0);
+        assertTrue("Highest value should be lower than 1", AcceptanceTable.uniform(-1L) < 1);
+        assertEquals("Highest bits give the value", 0.5, AcceptanceTable.uniform(Long.MIN_VALUE), 0);
+    }
+}
@@ -0,0 +1,47 @@
+package supermarket.tests;
+
+import org.junit.Test;
+import supermarket.domain.algorithm.AbstractAlgorithm;
+import supermarket.domain.algorithm.AntColonyAlgorithm;
+import supermarket.tuples.AlgorithmType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static supermarket.tests.TestMatrices.assertPermutation;
+import static supermarket.tests.TestMatrices.randomPointsMatrix;
+
+public class AntColonyAlgorithmTest extends MetaheuristicAlgorithmTestBase {
+    AbstractAlgorithm createAlgorithm(float[][] matrix) {
+        return new AntColonyAlgorithm(matrix);
+    }
+
+    AlgorithmType getExpectedType() {
+        return AlgorithmType.ANT_COLONY;
+    }
+
+    List<List<String>> getDeterministicParameters() {
+        return List.of(List.of("8", "5", "10"));
+    }
+
+    List<String> getSlowParameters() {
+        return List.of("3", "10", "1000000");
+    }
+
+    List<String> getInvalidParameters() {
+        return List.of("0", "x", "-1");
+    }
+
+    int getParameterCount() {
+        return 3;
+    }
+
+    @Test
+    public void testSingleCandidate() {
+        float[][] matrix = randomPointsMatrix(80, 9);
+        AntColonyAlgorithm algorithm = new AntColonyAlgorithm(matrix);
+        //ants mostly have to take the nearest unused product when their only candidate is used
+        algorithm.setParameters(new ArrayList<>(List.of("4", "1", "5")));
+        assertPermutation(80, algorithm.calculateDistribution());
+    }
+}
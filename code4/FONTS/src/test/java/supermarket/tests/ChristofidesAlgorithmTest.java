@@ -0,0 +1,117 @@
+package supermarket.tests;
+
+import org.junit.Test;
+import supermarket.domain.algorithm.ChristofidesAlgorithm;
+import supermarket.domain.algorithm.HeldKarpAlgorithm;
+import supermarket.domain.algorithm.KruskalApproxAlgorithm;
+import supermarket.tuples.AlgorithmType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static supermarket.tests.TestMatrices.assertPermutation;
+import static supermarket.tests.TestMatrices.randomPointsMatrix;
+
+public class ChristofidesAlgorithmTest {
+    @Test
+    public void testGetType() {
+        ChristofidesAlgorithm algorithm = new ChristofidesAlgorithm(new float[][]{{0}});
+        assertEquals("Algorithm type should be CHRISTOFIDES", AlgorithmType.CHRISTOFIDES, algorithm.getType());
+    }
+
+    @Test
+    public void testAvailableParameters() {
+        ChristofidesAlgorithm algorithm = new ChristofidesAlgorithm(new float[][]{{0}});
+        assertEquals("Should have the parameters of Kruskal and the matching type",
+                new KruskalApproxAlgorithm(new float[][]{{0}}).getAvailableParameters().size() + 1,
+                algorithm.getAvailableParameters().size());
+        assertEquals("Last parameter should be the matching type", "Matching Type", algorithm.getAvailableParameters().getLast().paramName());
+    }
+
+    @Test
+    public void testApproximationBound() {
+        for (int seed = 0; seed < 5; ++seed) {
+            float[][] matrix = randomPointsMatrix(12, seed);
+            ChristofidesAlgorithm algorithm = new ChristofidesAlgorithm(matrix);
+            int[] result = algorithm.calculateDistribution();
+            assertPermutation(12, result);
+            HeldKarpAlgorithm exact = new HeldKarpAlgorithm(matrix);
+            float optimal = exact.calculateCycleCost(exact.calculateDistribution());
+            assertTrue("Cost should be at most 1.5 times the optimal cost",
+                    algorithm.calculateCycleCost(result) <= 1.5f * optimal + 1e-3);
+        }
+    }
+
+    @Test
+    public void testAllMatchingAndEliminationTypes() {
+        float[][] matrix = randomPointsMatrix(30, 7);
+        for (String matchingType : ChristofidesAlgorithm.matchingTypes) {
+            for (String elimType : KruskalApproxAlgorithm.elimTypes) {
+                ChristofidesAlgorithm algorithm = new ChristofidesAlgorithm(matrix);
+                algorithm.setParameters(new ArrayList<>(List.of(elimType, "true", matchingType)));
+                assertPermutation(30, algorithm.calculateDistribution());
+            }
+        }
+    }
+
+    @Test
+    public void testBetterThanKruskalLargeMatrix() {
+        //too many odd nodes for the exact matching
+        float[][] matrix = randomPointsMatrix(400, 3);
+        ChristofidesAlgorithm algorithm = new ChristofidesAlgorithm(matrix);
+        int[] result = algorithm.calculateDistribution();
+        assertPermutation(400, result);
+        KruskalApproxAlgorithm kruskal = new KruskalApproxAlgorithm(matrix);
+        assertTrue("Should give a better distribution than the Kruskal approximation",
+                algorithm.calculateCycleCost(result) < kruskal.calculateCycleCost(kruskal.calculateDistribution()));
+    }
+
+    @Test(timeout = 10000)
+    public void testLargeDistancesBetweenClusters() {
+        //unrelated products are 1e9 apart, which must not hide the small distances when pairs are exchanged
+        for (int n : new int[]{12, 60}) {
+            for (int seed = 0; seed < 10; ++seed) {
+                Random random = new Random(seed);
+                int[] cluster = new int[n];
+                float[] x = new float[n], y = new float[n];
+                for (int i = 0; i < n; ++i) {
+                    cluster[i] = random.nextInt(4);
+                    x[i] = random.nextFloat() * 0.5f;
+                    y[i] = random.nextFloat() * 0.5f;
+                }
+                float[][] matrix = new float[n][n];
+                for (int i = 0; i < n; ++i) {
+                    for (int j = 0; j < n; ++j) {
+                        if (i != j) matrix[i][j] = cluster[i] == cluster[j] ? (float) Math.hypot(x[i] - x[j], y[i] - y[j]) : 1e9f;
+                    }
+                }
+                for (String matchingType : ChristofidesAlgorithm.matchingTypes) {
+                    ChristofidesAlgorithm algorithm = new ChristofidesAlgorithm(matrix);
+                    assertTrue("Clustered metric matrix should be accepted", algorithm.canUseAlgorithm());
+                    algorithm.setParameters(new ArrayList<>(List.of("FirstStartingNode", "false", matchingType)));
+                    assertPermutation(n, algorithm.calculateDistribution());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTrivialMatrices() {
+        assertArrayEquals("Empty matrix should give empty distribution", new int[]{}, new ChristofidesAlgorithm(new float[][]{}).calculateDistribution());
+        assertArrayEquals("Single element matrix should give {0}", new int[]{0}, new ChristofidesAlgorithm(new float[][]{{0}}).calculateDistribution());
+        assertPermutation(2, new ChristofidesAlgorithm(new float[][]{{0, 1}, {1, 0}}).calculateDistribution());
+    }
+
+    @Test
+    public void testCanUseAlgorithm() {
+        assertTrue("Should accept metric matrix", new ChristofidesAlgorithm(randomPointsMatrix(10, 1)).canUseAlgorithm());
+        float[][] violation = {
+                {0.0f, 10.0f, 1.0f},
+                {10.0f, 0.0f, 1.0f},
+                {1.0f, 1.0f, 0.0f}
+        };
+        assertFalse("Should reject matrix violating triangle inequality", new ChristofidesAlgorithm(violation).canUseAlgorithm());
+    }
+}
@@ -0,0 +1,54 @@
+package supermarket.tests;
+
+import org.junit.Test;
+import supermarket.domain.algorithm.CancellationToken;
+import supermarket.domain.algorithm.ExecutionControl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ExecutionControlTest {
+    @Test
+    public void testUnlimited() {
+        ExecutionControl control = ExecutionControl.unlimited();
+        assertFalse("Unlimited control should never stop", control.shouldStop());
+        assertEquals("Nothing reported should give infinite cost", Double.POSITIVE_INFINITY, control.getBestCost(), 0);
+        assertEquals("Nothing reported should give no iterations", 0, control.getIterations());
+    }
+
+    @Test
+    public void testTimeBudget() {
+        assertTrue("Zero budget should stop immediately", new ExecutionControl(Duration.ZERO, null, null).shouldStop());
+        assertFalse("Long budget should not stop", new ExecutionControl(Duration.ofHours(1), null, null).shouldStop());
+    }
+
+    @Test
+    public void testCancellation() {
+        CancellationToken token = new CancellationToken();
+        ExecutionControl control = new ExecutionControl(null, token, null);
+        assertFalse("Control should not stop before cancelling", control.shouldStop());
+        token.cancel();
+        assertTrue("Token should be cancelled", token.isCancelled());
+        assertTrue("Control should stop after cancelling", control.shouldStop());
+    }
+
+    @Test
+    public void testReportKeepsBestCost() {
+        List<Double> costs = new ArrayList<>();
+        List<Long> iterations = new ArrayList<>();
+        ExecutionControl control = new ExecutionControl(null, null, (cost, it) -> {
+            costs.add(cost);
+            iterations.add(it);
+        });
+        control.report(10, 5);
+        control.report(12, 3);
+        control.report(7, 2);
+        assertEquals("Listener should receive the best cost so far", List.of(10.0, 10.0, 7.0), costs);
+        assertEquals("Listener should receive the accumulated iterations", List.of(5L, 8L, 10L), iterations);
+        assertEquals("Best cost should be the lowest reported", 7, control.getBestCost(), 0);
+        assertEquals("Iterations should be accumulated", 10, control.getIterations());
+    }
+}
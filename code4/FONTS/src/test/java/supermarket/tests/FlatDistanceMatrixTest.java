@@ -0,0 +1,71 @@
+package supermarket.tests;
+
+import org.junit.Test;
+import supermarket.domain.algorithm.DistanceMatrix;
+import supermarket.domain.algorithm.FlatDistanceMatrix;
+
+import static org.junit.Assert.*;
+
+public class FlatDistanceMatrixTest {
+    @Test
+    public void testCopyOfArray() {
+        float[][] values = {
+                {0, 1, 2},
+                {3, 0, 4},
+                {5, 6, 0}
+        };
+        DistanceMatrix matrix = DistanceMatrix.of(values);
+        assertEquals("Size should be the number of rows", 3, matrix.size());
+        for (int i = 0; i < 3; ++i) {
+            for (int j = 0; j < 3; ++j) {
+                assertEquals("Values should be copied", values[i][j], matrix.get(i, j), 0);
+            }
+        }
+        values[0][1] = 10;
+        assertEquals("Matrix should not change with the original array", 1, matrix.get(0, 1), 0);
+    }
+
+    @Test
+    public void testSet() {
+        FlatDistanceMatrix matrix = new FlatDistanceMatrix(4);
+        assertEquals("New matrix should have all values set to 0", 0, matrix.get(2, 3), 0);
+        matrix.set(2, 3, 7.5f);
+        assertEquals("Value should be changed", 7.5f, matrix.get(2, 3), 0);
+        assertEquals("Other values should not change", 0, matrix.get(3, 2), 0);
+    }
+
+    @Test
+    public void testIsSymmetric() {
+        assertTrue("Symmetric matrix", DistanceMatrix.of(new float[][]{{0, 2}, {2, 0}}).isSymmetric());
+        assertFalse("Asymmetric matrix", DistanceMatrix.of(new float[][]{{0, 2}, {1, 0}}).isSymmetric());
+        assertTrue("Empty matrix is symmetric", new FlatDistanceMatrix(0).isSymmetric());
+    }
+
+    @Test
+    public void testIsSymmetricAfterSet() {
+        FlatDistanceMatrix matrix = new FlatDistanceMatrix(3);
+        matrix.set(1, 1, 5);
+        assertTrue("Diagonal values don't break symmetry", matrix.isSymmetric());
+        matrix.set(0, 2, 3);
+        assertFalse("Only one direction has been set", matrix.isSymmetric());
+        matrix.set(2, 0, 3);
+        assertTrue("Both directions have the same value", matrix.isSymmetric());
+        matrix.set(2, 0, 4);
+        matrix.set(1, 2, 1);
+        matrix.set(2, 0, 3);
+        assertFalse("Pair (1, 2) is still asymmetric", matrix.isSymmetric());
+        matrix.set(1, 2, 0);
+        assertTrue("All pairs are symmetric again", matrix.isSymmetric());
+    }
+
+    @Test
+    public void testIsSquare() {
+        assertTrue("Square matrix", FlatDistanceMatrix.isSquare(new float[][]{{0, 1}, {1, 0}}));
+        assertFalse("Non-square matrix", FlatDistanceMatrix.isSquare(new float[][]{{0, 1, 2}, {1, 0, 2}}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonSquareMatrix() {
+        new FlatDistanceMatrix(new float[][]{{0, 1}, {1}});
+    }
+}
@@ -0,0 +1,54 @@
+package supermarket.tests;
+
+import org.junit.Test;
+import supermarket.domain.algorithm.AbstractAlgorithm;
+import supermarket.domain.algorithm.GreedyAlgorithm;
+import supermarket.domain.algorithm.KruskalApproxAlgorithm;
+import supermarket.domain.algorithm.GeneticAlgorithm;
+import supermarket.tuples.AlgorithmType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static supermarket.tests.TestMatrices.randomPointsMatrix;
+
+public class GeneticAlgorithmTest extends MetaheuristicAlgorithmTestBase {
+    AbstractAlgorithm createAlgorithm(float[][] matrix) {
+        return new GeneticAlgorithm(matrix);
+    }
+
+    AlgorithmType getExpectedType() {
+        return AlgorithmType.GENETIC;
+    }
+
+    List<List<String>> getDeterministicParameters() {
+        List<List<String>> parameters = new ArrayList<>();
+        for (String crossover : GeneticAlgorithm.crossoverTypes) parameters.add(List.of(crossover, "4", "10", "2", "5"));
+        return parameters;
+    }
+
+    List<String> getSlowParameters() {
+        return List.of("Edge", "3", "10", "1", "1000000");
+    }
+
+    List<String> getInvalidParameters() {
+        return List.of("Mixed", "0", "2", "x", "-1");
+    }
+
+    int getParameterCount() {
+        return 5;
+    }
+
+    @Test
+    public void testNotWorseThanSeeds() {
+        float[][] matrix = randomPointsMatrix(150, 7);
+        GeneticAlgorithm algorithm = new GeneticAlgorithm(matrix);
+        algorithm.setParameters(new ArrayList<>(List.of("Order", "2", "10", "2", "3")));
+        float cost = algorithm.calculateCycleCost(algorithm.calculateDistribution());
+        GreedyAlgorithm greedy = new GreedyAlgorithm(matrix);
+        KruskalApproxAlgorithm kruskal = new KruskalApproxAlgorithm(matrix);
+        assertTrue("Result should not be worse than the greedy seeds", cost <= greedy.calculateCycleCost(greedy.calculateDistribution()));
+        assertTrue("Result should not be worse than the Kruskal seed", cost <= kruskal.calculateCycleCost(kruskal.calculateDistribution()));
+    }
+}
@@ -2,6 +2,7 @@ package supermarket.tests;
 
 import org.junit.Test;
 import supermarket.domain.algorithm.AbstractAlgorithm;
+import supermarket.domain.algorithm.CancellationToken;
 import supermarket.domain.algorithm.GreedyAlgorithm;
 
 import java.util.ArrayList;
@@ -154,4 +155,57 @@ public class GreedyAlgorithmTest {
             int[] expectedOrder = new int[]{0, 1, 2, 3};
             assertArrayEquals("Expected specific distribution for sparse matrix", expectedOrder, result);
         }
+
+    @Test
+    public void testAllStartsTieLowestStartingNode() {
+        float[][] sameValuesMatrix = {
+                {0.f,1.f,1.f,1.f,1.f},
+                {1.f,0.f,1.f,1.f,1.f},
+                {1.f,1.f,0.f,1.f,1.f},
+                {1.f,1.f,1.f,0.f,1.f},
+                {1.f,1.f,1.f,1.f,0.f},
+        };
+        GreedyAlgorithm greedyAlgorithm = new GreedyAlgorithm(sameValuesMatrix);
+        greedyAlgorithm.setParameters(new ArrayList<>(List.of("true")));
+        int[] expectedResult = {0,1,2,3,4};         // All starting nodes have the same cost, so the lowest one is kept
+        assertArrayEquals("Expected ties between starting nodes to keep the lowest one", expectedResult, greedyAlgorithm.calculateDistribution());
+    }
+
+    @Test
+    public void testAllStartsDeterministic() {
+        int n = 120;
+        float[][] matrix = new float[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                if (i != j) matrix[i][j] = (i * 37 + j * 11) % 29 + 1;
+            }
+        }
+        GreedyAlgorithm greedyAlgorithm = new GreedyAlgorithm(matrix);
+        int[] fromZero = greedyAlgorithm.calculateDistribution();
+        greedyAlgorithm.setParameters(new ArrayList<>(List.of("true")));
+        int[] result = greedyAlgorithm.calculateDistribution();
+        assertArrayEquals("Expected the same result on every execution", result, greedyAlgorithm.calculateDistribution());
+        assertTrue("Expected all starting nodes not to be worse than starting from node 0",
+                greedyAlgorithm.calculateCycleCost(result) <= greedyAlgorithm.calculateCycleCost(fromZero));
+    }
+
+    @Test
+    public void testAllStartsCancelled() {
+        int n = 120;
+        float[][] matrix = new float[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                if (i != j) matrix[i][j] = (i * 37 + j * 11) % 29 + 1;
+            }
+        }
+        GreedyAlgorithm greedyAlgorithm = new GreedyAlgorithm(matrix);
+        int[] fromZero = greedyAlgorithm.calculateDistribution();
+        greedyAlgorithm.setParameters(new ArrayList<>(List.of("true")));
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        long[] iterations = new long[1];
+        int[] result = greedyAlgorithm.calculateDistribution(null, token, (cost, it) -> iterations[0] = it);
+        assertArrayEquals("Expected only starting node 0 to be tried when cancelled", fromZero, result);
+        assertEquals("Expected a single iteration to be reported", 1, iterations[0]);
+    }
 }
@@ -0,0 +1,104 @@
+package supermarket.tests;
+
+import org.junit.Test;
+import supermarket.domain.algorithm.CancellationToken;
+import supermarket.domain.algorithm.GreedyAlgorithm;
+import supermarket.domain.algorithm.HeldKarpAlgorithm;
+import supermarket.tuples.AlgorithmType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HeldKarpAlgorithmTest {
+    private static float[][] randomMatrix(int n, long seed, boolean symmetric) {
+        Random random = new Random(seed);
+        float[][] matrix = new float[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                if (i == j) continue;
+                if (symmetric && j < i) matrix[i][j] = matrix[j][i];
+                else matrix[i][j] = 1 + random.nextInt(100);
+            }
+        }
+        return matrix;
+    }
+
+    private static float bruteForceCost(HeldKarpAlgorithm algorithm, int[] order, int pos, boolean[] used) {
+        if (pos == order.length) return algorithm.calculateCycleCost(order);
+        float best = Float.MAX_VALUE;
+        for (int v = 1; v < order.length; ++v) {
+            if (used[v]) continue;
+            used[v] = true;
+            order[pos] = v;
+            best = Math.min(best, bruteForceCost(algorithm, order, pos + 1, used));
+            used[v] = false;
+        }
+        return best;
+    }
+
+    @Test
+    public void testGetType() {
+        HeldKarpAlgorithm algorithm = new HeldKarpAlgorithm(new float[][]{{0}});
+        assertEquals("Algorithm type should be EXACT_DP", AlgorithmType.EXACT_DP, algorithm.getType());
+    }
+
+    @Test
+    public void testOptimalSmallMatrices() {
+        for (int n = 3; n <= 8; ++n) {
+            for (boolean symmetric : new boolean[]{true, false}) {
+                HeldKarpAlgorithm algorithm = new HeldKarpAlgorithm(randomMatrix(n, n, symmetric));
+                int[] result = algorithm.calculateDistribution();
+                boolean[] used = new boolean[n];
+                for (int index : result) {
+                    assertFalse("Each index should appear only once", used[index]);
+                    used[index] = true;
+                }
+                float optimal = bruteForceCost(algorithm, new int[n], 1, new boolean[n]);
+                assertEquals("Cost should be optimal for n = " + n, optimal, algorithm.calculateCycleCost(result), 1e-3);
+            }
+        }
+    }
+
+    @Test
+    public void testTrivialMatrices() {
+        assertArrayEquals("Empty matrix should give empty distribution", new int[]{}, new HeldKarpAlgorithm(new float[][]{}).calculateDistribution());
+        assertArrayEquals("Single element matrix should give {0}", new int[]{0}, new HeldKarpAlgorithm(new float[][]{{0}}).calculateDistribution());
+        assertArrayEquals("Two elements matrix should give {0, 1}", new int[]{0, 1}, new HeldKarpAlgorithm(new float[][]{{0, 1}, {1, 0}}).calculateDistribution());
+    }
+
+    @Test
+    public void testNotWorseThanGreedyParallelLayers() {
+        //big enough for the largest layers to be computed in parallel
+        float[][] matrix = randomMatrix(16, 7, true);
+        HeldKarpAlgorithm algorithm = new HeldKarpAlgorithm(matrix);
+        int[] result = algorithm.calculateDistribution();
+        assertArrayEquals("Results should be deterministic", result, algorithm.calculateDistribution());
+
+        GreedyAlgorithm greedy = new GreedyAlgorithm(matrix);
+        List<String> params = new ArrayList<>(List.of("true"));
+        greedy.setParameters(params);
+        assertTrue("Exact result should not be worse than greedy",
+                algorithm.calculateCycleCost(result) <= greedy.calculateCycleCost(greedy.calculateDistribution()) + 1e-3);
+    }
+
+    @Test
+    public void testCancelledGivesGreedy() {
+        float[][] matrix = randomMatrix(16, 3, true);
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        long[] iterations = new long[1];
+        int[] result = new HeldKarpAlgorithm(matrix).calculateDistribution(null, token, (cost, it) -> iterations[0] = it);
+        assertArrayEquals("Cancelled calculation should give the greedy distribution", new GreedyAlgorithm(matrix).calculateDistribution(), result);
+        assertEquals("Expected a single iteration to be reported", 1, iterations[0]);
+    }
+
+    @Test
+    public void testCanUseAlgorithmMemoryBudget() {
+        assertTrue("Should accept small shelves", new HeldKarpAlgorithm(randomMatrix(18, 1, true)).canUseAlgorithm());
+        assertFalse("Should reject shelves that exceed the memory budget", new HeldKarpAlgorithm(randomMatrix(30, 1, true)).canUseAlgorithm());
+        assertFalse("Should reject matrix with negative values", new HeldKarpAlgorithm(new float[][]{{0, -1}, {1, 0}}).canUseAlgorithm());
+    }
+}
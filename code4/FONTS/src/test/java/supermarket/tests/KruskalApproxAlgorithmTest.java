@@ -2,6 +2,9 @@ package supermarket.tests;
 
 import org.junit.Before;
 import org.junit.Test;
+import supermarket.domain.algorithm.CancellationToken;
+import supermarket.domain.algorithm.ExecutionControl;
+import supermarket.domain.algorithm.HeldKarpAlgorithm;
 import supermarket.domain.algorithm.KruskalApproxAlgorithm;
 import supermarket.tuples.AlgorithmType;
 import supermarket.tuples.AlgorithmParameter;
@@ -10,6 +13,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.*;
+import static supermarket.tests.TestMatrices.assertPermutation;
+import static supermarket.tests.TestMatrices.randomPointsMatrix;
 
 public class KruskalApproxAlgorithmTest {
     private static final float[][] MATRIX_2X2 = {
@@ -202,6 +207,140 @@ public class KruskalApproxAlgorithmTest {
         );
     }
 
+    @Test
+    public void testCancelledBestStartingNode() {
+        float[][] matrix = randomPointsMatrix(500, 6, 100);
+        KruskalApproxAlgorithm alg = new KruskalApproxAlgorithm(matrix);
+        alg.setParameters(new ArrayList<>(List.of("BestStartingNode")));
+        double bestCost = alg.calculateCycleCost(alg.calculateDistribution());
+
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        ExecutionControl control = new ExecutionControl(null, token, null);
+        int[] result = alg.calculateDistribution(control);
+        boolean[] used = new boolean[matrix.length];
+        for (int index : result) {
+            assertFalse("Each index should appear only once", used[index]);
+            used[index] = true;
+        }
+        assertTrue("Some starting nodes should be skipped when cancelled", control.getIterations() < matrix.length);
+        assertTrue("Cancelled search should not be better than the full search",
+                alg.calculateCycleCost(result) >= bestCost * (1 - 1e-6));
+    }
+
+    @Test
+    public void testReportedStartingNodes() {
+        float[][] matrix = randomPointsMatrix(200, 4, 100);
+        KruskalApproxAlgorithm alg = new KruskalApproxAlgorithm(matrix);
+        ExecutionControl control = new ExecutionControl(null, null, null);
+        alg.calculateDistribution(control);
+        assertEquals("FirstStartingNode should evaluate a single starting node", 1, control.getIterations());
+
+        alg.setParameters(new ArrayList<>(List.of("BestStartingNode")));
+        control = new ExecutionControl(null, null, null);
+        int[] result = alg.calculateDistribution(control);
+        assertEquals("BestStartingNode should evaluate every starting node", matrix.length, control.getIterations());
+        assertEquals("Reported cost should be the cost of the result", alg.calculateCycleCost(result), control.getBestCost(), 1e-3);
+    }
+
+    @Test
+    public void testCancelledSpanningTree() {
+        //the spanning tree is cut short, but all nodes are still connected
+        float[][] matrix = randomPointsMatrix(300, 2, 100);
+        KruskalApproxAlgorithm alg = new KruskalApproxAlgorithm(matrix);
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        assertPermutation(matrix.length, alg.calculateDistribution(new ExecutionControl(null, token, null)));
+    }
+
+    @Test
+    public void testTwoApproximation() {
+        for (int seed = 0; seed < 5; ++seed) {
+            float[][] matrix = randomPointsMatrix(10, seed, 100);
+            KruskalApproxAlgorithm alg = new KruskalApproxAlgorithm(matrix);
+            HeldKarpAlgorithm exact = new HeldKarpAlgorithm(matrix);
+            float optimal = exact.calculateCycleCost(exact.calculateDistribution());
+            assertTrue(
+                    "Cost should be at most twice the optimal cost",
+                    alg.calculateCycleCost(alg.calculateDistribution()) <= 2 * optimal + 1e-3
+            );
+        }
+    }
+
+    @Test
+    public void testLargeMatricesWithTies() {
+        //small grid, so many edges have the same weight
+        float[][] symmetric = randomPointsMatrix(300, 1, 10);
+        float[][] asymmetric = randomPointsMatrix(300, 2, 10);
+        asymmetric[0][1] += 1;
+        for (float[][] matrix : new float[][][]{symmetric, asymmetric}) {
+            KruskalApproxAlgorithm alg = new KruskalApproxAlgorithm(matrix);
+            int[] solution = alg.calculateDistribution();
+            assertEquals("Solution length should match matrix size", matrix.length, solution.length);
+            boolean[] visited = new boolean[matrix.length];
+            for (int vertex : solution) {
+                assertFalse("Each vertex should appear only once", visited[vertex]);
+                visited[vertex] = true;
+            }
+            assertArrayEquals("Results should be deterministic", solution, alg.calculateDistribution());
+        }
+    }
+
+    @Test
+    public void testIncompleteMatrixSameTree() {
+        //complete matrices use Prim's algorithm, matrices with infinite weights use Kruskal's algorithm
+        float[][] complete = randomPointsMatrix(60, 3, 10);
+        float[][] incomplete = new float[60][];
+        for (int i = 0; i < 60; ++i) incomplete[i] = complete[i].clone();
+        int maxI = 0, maxJ = 1;
+        for (int i = 0; i < 60; ++i) {
+            for (int j = 0; j < 60; ++j) {
+                if (complete[i][j] > complete[maxI][maxJ]) {
+                    maxI = i;
+                    maxJ = j;
+                }
+            }
+        }
+        //the heaviest edge is never part of the tree, so removing it must not change the result
+        incomplete[maxI][maxJ] = Float.POSITIVE_INFINITY;
+        incomplete[maxJ][maxI] = Float.POSITIVE_INFINITY;
+        assertArrayEquals(
+                "Both minimum spanning tree methods should give the same result",
+                new KruskalApproxAlgorithm(complete).calculateDistribution(),
+                new KruskalApproxAlgorithm(incomplete).calculateDistribution()
+        );
+    }
+
+    @Test
+    public void testParallelBestStartingNode() {
+        //large enough for the search of the best starting node to run in parallel
+        float[][] matrix = randomPointsMatrix(4200, 5, 1000);
+        KruskalApproxAlgorithm alg = new KruskalApproxAlgorithm(matrix);
+        alg.setParameters(new ArrayList<>(List.of("FirstStartingNode")));
+        float firstCost = alg.calculateCycleCost(alg.calculateDistribution());
+        alg.setParameters(new ArrayList<>(List.of("BestStartingNode", "true")));
+        int[] parallel = alg.calculateDistribution();
+        alg.setParameters(new ArrayList<>(List.of("BestStartingNode", "false")));
+        int[] sequential = alg.calculateDistribution();
+        assertArrayEquals("Parallel and sequential search should give the same result", sequential, parallel);
+        assertTrue(
+                "BestStartingNode should not be worse than FirstStartingNode",
+                alg.calculateCycleCost(parallel) <= firstCost * (1 + 1e-6)
+        );
+    }
+
+    @Test
+    public void testTrivialMatrices() {
+        for (String elimType : KruskalApproxAlgorithm.elimTypes) {
+            KruskalApproxAlgorithm empty = new KruskalApproxAlgorithm(new float[][]{});
+            empty.setParameters(new ArrayList<>(List.of(elimType)));
+            assertArrayEquals("Empty matrix should give empty distribution", new int[]{}, empty.calculateDistribution());
+            KruskalApproxAlgorithm single = new KruskalApproxAlgorithm(new float[][]{{0}});
+            single.setParameters(new ArrayList<>(List.of(elimType)));
+            assertArrayEquals("Single element matrix should give {0}", new int[]{0}, single.calculateDistribution());
+        }
+    }
+
     @Test(expected = NullPointerException.class)
     public void testNullMatrix() {
         new KruskalApproxAlgorithm(null);
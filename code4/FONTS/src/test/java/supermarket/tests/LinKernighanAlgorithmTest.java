@@ -0,0 +1,94 @@
+package supermarket.tests;
+
+import org.junit.Test;
+import supermarket.domain.algorithm.ChristofidesAlgorithm;
+import supermarket.domain.algorithm.GreedyAlgorithm;
+import supermarket.domain.algorithm.HeldKarpAlgorithm;
+import supermarket.domain.algorithm.LinKernighanAlgorithm;
+import supermarket.tuples.AlgorithmType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static supermarket.tests.TestMatrices.assertPermutation;
+import static supermarket.tests.TestMatrices.randomPointsMatrix;
+
+public class LinKernighanAlgorithmTest {
+    @Test
+    public void testGetType() {
+        LinKernighanAlgorithm algorithm = new LinKernighanAlgorithm(new float[][]{{0}});
+        assertEquals("Algorithm type should be LIN_KERNIGHAN", AlgorithmType.LIN_KERNIGHAN, algorithm.getType());
+    }
+
+    @Test
+    public void testNearOptimalSmallMatrices() {
+        for (int seed = 0; seed < 5; ++seed) {
+            float[][] matrix = randomPointsMatrix(14, seed);
+            LinKernighanAlgorithm algorithm = new LinKernighanAlgorithm(matrix);
+            int[] result = algorithm.calculateDistribution();
+            assertPermutation(14, result);
+            HeldKarpAlgorithm exact = new HeldKarpAlgorithm(matrix);
+            float optimal = exact.calculateCycleCost(exact.calculateDistribution());
+            assertEquals("Cost should be optimal for small matrices", optimal, algorithm.calculateCycleCost(result), 1e-3);
+        }
+    }
+
+    @Test
+    public void testBetterThanOtherApproximations() {
+        float[][] matrix = randomPointsMatrix(300, 1);
+        LinKernighanAlgorithm algorithm = new LinKernighanAlgorithm(matrix);
+        int[] result = algorithm.calculateDistribution();
+        assertPermutation(300, result);
+        assertArrayEquals("Results should be deterministic", result, algorithm.calculateDistribution());
+        float cost = algorithm.calculateCycleCost(result);
+
+        GreedyAlgorithm greedy = new GreedyAlgorithm(matrix);
+        ChristofidesAlgorithm christofides = new ChristofidesAlgorithm(matrix);
+        assertTrue("Should be better than greedy", cost < greedy.calculateCycleCost(greedy.calculateDistribution()));
+        assertTrue("Should be better than Christofides", cost < christofides.calculateCycleCost(christofides.calculateDistribution()));
+    }
+
+    @Test
+    public void testAsymmetricNotWorseThanGreedy() {
+        float[][] matrix = randomPointsMatrix(100, 2);
+        Random random = new Random(3);
+        for (int i = 0; i < 100; ++i) {
+            for (int j = 0; j < 100; ++j) {
+                if (i != j) matrix[i][j] += random.nextInt(20);
+            }
+        }
+        LinKernighanAlgorithm algorithm = new LinKernighanAlgorithm(matrix);
+        int[] result = algorithm.calculateDistribution();
+        assertPermutation(100, result);
+        GreedyAlgorithm greedy = new GreedyAlgorithm(matrix);
+        assertTrue("Should not be worse than greedy with asymmetric matrices",
+                algorithm.calculateCycleCost(result) <= greedy.calculateCycleCost(greedy.calculateDistribution()) + 1e-3);
+    }
+
+    @Test
+    public void testSetParameters() {
+        float[][] matrix = randomPointsMatrix(200, 4);
+        LinKernighanAlgorithm algorithm = new LinKernighanAlgorithm(matrix);
+        assertEquals("Should have 2 parameters", 2, algorithm.getAvailableParameters().size());
+
+        algorithm.setParameters(new ArrayList<>(List.of("3", "0")));
+        float withoutKicks = algorithm.calculateCycleCost(algorithm.calculateDistribution());
+        algorithm.setParameters(new ArrayList<>(List.of("3", "500")));
+        float withKicks = algorithm.calculateCycleCost(algorithm.calculateDistribution());
+        assertTrue("Kicks should not make the result worse", withKicks <= withoutKicks + 1e-3);
+
+        //invalid values use the defaults
+        algorithm.setParameters(new ArrayList<>(List.of("0", "abc")));
+        assertPermutation(200, algorithm.calculateDistribution());
+    }
+
+    @Test
+    public void testTrivialMatrices() {
+        assertArrayEquals("Empty matrix should give empty distribution", new int[]{}, new LinKernighanAlgorithm(new float[][]{}).calculateDistribution());
+        for (int n = 1; n <= 8; ++n) {
+            assertPermutation(n, new LinKernighanAlgorithm(randomPointsMatrix(n, n)).calculateDistribution());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package supermarket.tests;
+
+import org.junit.Test;
+import supermarket.domain.algorithm.AbstractAlgorithm;
+import supermarket.domain.algorithm.GreedyAlgorithm;
+import supermarket.domain.algorithm.LocalSearchOptimizer;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static supermarket.tests.TestMatrices.assertPermutation;
+import static supermarket.tests.TestMatrices.randomPointsMatrix;
+
+public class LocalSearchOptimizerTest {
+    @Test
+    public void testRemovesCrossing() {
+        //square with side 1, the order 0,2,1,3 crosses both diagonals
+        float d = (float) Math.sqrt(2);
+        float[][] square = {
+                {0, 1, d, 1},
+                {1, 0, 1, d},
+                {d, 1, 0, 1},
+                {1, d, 1, 0}
+        };
+        LocalSearchOptimizer optimizer = new LocalSearchOptimizer(square);
+        int[] result = optimizer.optimize(new int[]{0, 2, 1, 3});
+        assertPermutation(4, result);
+        assertEquals("Optimized cycle should follow the perimeter of the square",
+                4, new GreedyAlgorithm(square).calculateCycleCost(result), 1e-5);
+    }
+
+    @Test
+    public void testDoesNotModifyInput() {
+        float[][] matrix = randomPointsMatrix(30, 3);
+        int[] initial = new int[30];
+        for (int i = 0; i < 30; ++i) initial[i] = (i * 7) % 30;
+        int[] copy = initial.clone();
+        new LocalSearchOptimizer(matrix).optimize(initial);
+        assertArrayEquals("Input distribution should not be modified", copy, initial);
+    }
+
+    @Test
+    public void testImprovesGreedySymmetric() {
+        float[][] matrix = randomPointsMatrix(200, 1);
+        AbstractAlgorithm greedy = new GreedyAlgorithm(matrix);
+        int[] greedyResult = greedy.calculateDistribution();
+        int[] result = new LocalSearchOptimizer(matrix).optimize(greedyResult);
+        assertPermutation(200, result);
+        assertTrue("Local search should improve a greedy distribution",
+                greedy.calculateCycleCost(result) < greedy.calculateCycleCost(greedyResult));
+    }
+
+    @Test
+    public void testNotWorseAsymmetric() {
+        float[][] matrix = randomPointsMatrix(80, 2);
+        Random random = new Random(4);
+        for (int i = 0; i < 80; ++i) {
+            for (int j = 0; j < 80; ++j) {
+                if (i != j) matrix[i][j] += random.nextInt(20);
+            }
+        }
+        AbstractAlgorithm greedy = new GreedyAlgorithm(matrix);
+        int[] greedyResult = greedy.calculateDistribution();
+        int[] result = new LocalSearchOptimizer(matrix).optimize(greedyResult);
+        assertPermutation(80, result);
+        assertTrue("Local search should never make a distribution worse",
+                greedy.calculateCycleCost(result) <= greedy.calculateCycleCost(greedyResult) + 1e-3);
+    }
+
+    @Test(timeout = 10000)
+    public void testLargeDistances() {
+        //unrelated products have huge distances, which must not hide the small ones when moves are evaluated:
+        //replacing 0-1 and 2-3 by 0-2 and 1-3 looks like an improvement of 1 when 1e9 - 1.5 is rounded to a float
+        //(and then the search keeps applying fake improvements forever)
+        float[][] matrix = {
+                {0, 1e9f, 1.5f, 1},
+                {1e9f, 0, 1, 1e9f},
+                {1.5f, 1, 0, 1},
+                {1, 1e9f, 1, 0}};
+        int[] initial = {0, 1, 2, 3};
+        int[] result = new LocalSearchOptimizer(matrix).optimize(initial);
+        assertPermutation(4, result);
+        double initialCost = 0, resultCost = 0;
+        for (int i = 0; i < 4; ++i) {
+            initialCost += matrix[initial[i]][initial[(i + 1) % 4]];
+            resultCost += matrix[result[i]][result[(i + 1) % 4]];
+        }
+        assertTrue("Optimized distribution should not be worse than the initial one", resultCost <= initialCost);
+    }
+
+    @Test
+    public void testSmallMatrices() {
+        for (int n = 1; n <= 3; ++n) {
+            float[][] matrix = randomPointsMatrix(n, n);
+            int[] initial = new int[n];
+            for (int i = 0; i < n; ++i) initial[i] = i;
+            assertPermutation(n, new LocalSearchOptimizer(matrix).optimize(initial));
+        }
+    }
+}
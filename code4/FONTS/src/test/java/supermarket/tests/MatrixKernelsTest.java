@@ -0,0 +1,79 @@
+package supermarket.tests;
+
+import org.junit.Assume;
+import org.junit.Test;
+import supermarket.domain.algorithm.MatrixKernels;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MatrixKernelsTest {
+    private static MatrixKernels vectorKernels() {
+        try {
+            return MatrixKernels.vector();
+        } catch (UnsupportedOperationException e) {
+            Assume.assumeNoException("Vector API is not available", e);
+            return null;
+        }
+    }
+
+    @Test
+    public void testScalarArgMin() {
+        MatrixKernels kernels = MatrixKernels.scalar();
+        float[] values = {9, 3, 1, 1, 5, 0.5f};
+        assertEquals("Lowest value should be chosen", 5, kernels.argMin(values, 0, new boolean[6]));
+        assertEquals("First column should be chosen in case of tie", 2,
+                kernels.argMin(values, 0, new boolean[] {false, false, false, false, false, true}));
+        assertEquals("Offset should be applied", 1, kernels.argMin(values, 2, new boolean[] {true, false, false}));
+        assertEquals("No column should be chosen when all are excluded", -1, kernels.argMin(values, 0, new boolean[] {true, true}));
+        assertEquals("Float.MAX_VALUE should never be chosen", -1, kernels.argMin(new float[] {Float.MAX_VALUE}, 0, new boolean[1]));
+    }
+
+    @Test
+    public void testScalarInvertAndNegative() {
+        MatrixKernels kernels = MatrixKernels.scalar();
+        float[] values = {2, 0, 4, 0.5f};
+        kernels.invert(values, 1, 4);
+        assertArrayEquals("Range should be inverted", new float[] {2, MatrixKernels.INVERTED_ZERO, 0.25f, 2}, values, 0);
+        assertFalse("Non-negative values", kernels.anyNegative(values, 0, 4));
+        assertTrue("Negative value", kernels.anyNegative(new float[] {1, -1}, 0, 2));
+        assertFalse("Negative value out of the range", kernels.anyNegative(new float[] {1, -1}, 0, 1));
+    }
+
+    @Test
+    public void testVectorSameResultsAsScalar() {
+        MatrixKernels vector = vectorKernels();
+        MatrixKernels scalar = MatrixKernels.scalar();
+        Random random = new Random(3);
+        for (int test = 0; test < 200; ++test) {
+            int length = 1 + random.nextInt(70); //lengths that fill and don't fill whole vectors
+            int offset = random.nextInt(5);
+            float[] values = new float[offset + length];
+            boolean[] excluded = new boolean[length];
+            for (int i = 0; i < values.length; ++i) {
+                switch (random.nextInt(8)) {
+                    case 0 -> values[i] = 0;
+                    case 1 -> values[i] = Float.MAX_VALUE;
+                    case 2 -> values[i] = -1;
+                    case 3 -> values[i] = Float.NaN;
+                    default -> values[i] = random.nextInt(10); //many ties
+                }
+            }
+            for (int j = 0; j < length; ++j) excluded[j] = random.nextInt(3) == 0;
+
+            assertEquals("Same argmin", scalar.argMin(values, offset, excluded), vector.argMin(values, offset, excluded));
+            assertEquals("Same negative check", scalar.anyNegative(values, offset, values.length),
+                    vector.anyNegative(values, offset, values.length));
+            float[] scalarValues = values.clone(), vectorValues = values.clone();
+            scalar.invert(scalarValues, offset, values.length);
+            vector.invert(vectorValues, offset, values.length);
+            assertArrayEquals("Same inverted values", scalarValues, vectorValues, 0);
+        }
+    }
+
+    @Test
+    public void testSelectedKernels() {
+        assertNotNull("Some kernels should always be selected", MatrixKernels.SELECTED);
+    }
+}
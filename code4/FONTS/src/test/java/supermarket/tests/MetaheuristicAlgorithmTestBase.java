@@ -0,0 +1,122 @@
+package supermarket.tests;
+
+import org.junit.Test;
+import supermarket.domain.algorithm.AbstractAlgorithm;
+import supermarket.domain.algorithm.CancellationToken;
+import supermarket.domain.algorithm.HeldKarpAlgorithm;
+import supermarket.tuples.AlgorithmType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static supermarket.tests.TestMatrices.assertPermutation;
+import static supermarket.tests.TestMatrices.randomPointsMatrix;
+
+/**
+ * Tests shared by the multithreaded metaheuristics (parallel tempering, genetic and ant colony algorithms).
+ * Each subclass gives the algorithm and the parameters used by the tests, and adds its own tests.
+ */
+public abstract class MetaheuristicAlgorithmTestBase {
+    /**
+     * @return A new instance of the tested algorithm, with its default parameters.
+     */
+    abstract AbstractAlgorithm createAlgorithm(float[][] matrix);
+
+    abstract AlgorithmType getExpectedType();
+
+    /**
+     * @return Parameters tested to give the same result in every run (one list for each run).
+     */
+    abstract List<List<String>> getDeterministicParameters();
+
+    /**
+     * @return Parameters that make the calculation take very long, so it only stops when cancelled.
+     */
+    abstract List<String> getSlowParameters();
+
+    /**
+     * @return Parameters with invalid values, which are replaced by the default ones.
+     */
+    abstract List<String> getInvalidParameters();
+
+    abstract int getParameterCount();
+
+    @Test
+    public void testGetType() {
+        AlgorithmType expected = getExpectedType();
+        assertEquals("Algorithm type should be " + expected, expected, createAlgorithm(new float[][]{{0}}).getType());
+    }
+
+    @Test
+    public void testEmptyAndSingleElement() {
+        assertEquals("Empty matrix should give an empty distribution", 0,
+                createAlgorithm(new float[][]{}).calculateDistribution().length);
+        assertArrayEquals("Single element", new int[]{0}, createAlgorithm(new float[][]{{0}}).calculateDistribution());
+    }
+
+    @Test
+    public void testOptimalSmallMatrices() {
+        for (int seed = 0; seed < 3; ++seed) {
+            float[][] matrix = randomPointsMatrix(11, seed);
+            AbstractAlgorithm algorithm = createAlgorithm(matrix);
+            int[] result = algorithm.calculateDistribution();
+            assertPermutation(11, result);
+            HeldKarpAlgorithm exact = new HeldKarpAlgorithm(matrix);
+            assertEquals("Small matrices should reach the optimum",
+                    exact.calculateCycleCost(exact.calculateDistribution()), algorithm.calculateCycleCost(result), 1e-3);
+        }
+    }
+
+    @Test
+    public void testDeterministic() {
+        float[][] matrix = randomPointsMatrix(60, 4);
+        AbstractAlgorithm algorithm = createAlgorithm(matrix);
+        for (List<String> parameters : getDeterministicParameters()) {
+            algorithm.setParameters(new ArrayList<>(parameters));
+            int[] result = algorithm.calculateDistribution();
+            assertPermutation(60, result);
+            assertArrayEquals("Results should not depend on thread scheduling", result, algorithm.calculateDistribution());
+        }
+    }
+
+    @Test
+    public void testAsymmetricMatrix() {
+        int n = 30;
+        float[][] matrix = new float[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                if (i != j) matrix[i][j] = (i * 13 + j * 7) % 19 + 1;
+            }
+        }
+        AbstractAlgorithm algorithm = createAlgorithm(matrix);
+        assertTrue("Algorithm should be usable with asymmetric matrices", algorithm.canUseAlgorithm());
+        assertPermutation(n, algorithm.calculateDistribution());
+    }
+
+    @Test
+    public void testCancelled() {
+        float[][] matrix = randomPointsMatrix(200, 5);
+        AbstractAlgorithm algorithm = createAlgorithm(matrix);
+        //it would take very long without the cancellation
+        algorithm.setParameters(new ArrayList<>(getSlowParameters()));
+        CancellationToken token = new CancellationToken();
+        List<Double> costs = new ArrayList<>();
+        int[] result = algorithm.calculateDistribution(Duration.ofSeconds(30), token, (cost, iterations) -> {
+            costs.add(cost);
+            if (costs.size() == 5) token.cancel();
+        });
+        assertPermutation(200, result);
+        assertEquals("Algorithm should stop after the report where it is cancelled", 5, costs.size());
+        assertEquals("Result should have the last reported cost", costs.getLast(), algorithm.calculateCycleCost(result), 1e-2);
+    }
+
+    @Test
+    public void testInvalidParameters() {
+        AbstractAlgorithm algorithm = createAlgorithm(randomPointsMatrix(20, 6));
+        algorithm.setParameters(new ArrayList<>(getInvalidParameters()));
+        assertPermutation(20, algorithm.calculateDistribution());
+        assertEquals("Algorithm should have " + getParameterCount() + " parameters", getParameterCount(), algorithm.getAvailableParameters().size());
+    }
+}
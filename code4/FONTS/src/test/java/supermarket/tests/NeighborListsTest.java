@@ -0,0 +1,93 @@
+package supermarket.tests;
+
+import org.junit.Test;
+import supermarket.domain.algorithm.GreedyAlgorithm;
+import supermarket.domain.algorithm.NeighborLists;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NeighborListsTest {
+    private static float[][] randomMatrix(int n, long seed) {
+        Random random = new Random(seed);
+        float[][] matrix = new float[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                if (i != j) matrix[i][j] = random.nextInt(50);
+            }
+        }
+        return matrix;
+    }
+
+    private static void assertSortedNearest(float[][] matrix, NeighborLists lists) {
+        int n = matrix.length;
+        for (int i = 0; i < n; ++i) {
+            boolean[] inList = new boolean[n];
+            for (int rank = 0; rank < lists.getK(); ++rank) {
+                int v = lists.get(i, rank);
+                assertNotEquals("An element should not be its own neighbor", i, v);
+                assertFalse("Neighbors should not be repeated", inList[v]);
+                inList[v] = true;
+                if (rank > 0) {
+                    int u = lists.get(i, rank - 1);
+                    assertTrue("Neighbors should be sorted by distance, ties by lowest index",
+                            matrix[i][u] < matrix[i][v] || (matrix[i][u] == matrix[i][v] && u < v));
+                }
+            }
+            //every element left out must not be nearer than the last one of the list
+            if (lists.getK() == 0) continue;
+            int last = lists.get(i, lists.getK() - 1);
+            for (int j = 0; j < n; ++j) {
+                if (j == i || inList[j]) continue;
+                assertTrue("Elements out of the list should not be nearer",
+                        matrix[i][j] > matrix[i][last] || (matrix[i][j] == matrix[i][last] && j > last));
+            }
+        }
+    }
+
+    @Test
+    public void testSortedNearestNeighbors() {
+        float[][] matrix = randomMatrix(40, 1);
+        NeighborLists lists = new NeighborLists(matrix, 7);
+        assertEquals("Size should match matrix dimension", 40, lists.size());
+        assertEquals("K should be the requested one", 7, lists.getK());
+        assertSortedNearest(matrix, lists);
+    }
+
+    @Test
+    public void testTiesLowestIndex() {
+        float[][] matrix = new float[5][5];
+        for (int i = 0; i < 5; ++i) {
+            for (int j = 0; j < 5; ++j) {
+                if (i != j) matrix[i][j] = 1;
+            }
+        }
+        NeighborLists lists = new NeighborLists(matrix, 2);
+        assertEquals("First neighbor of 0 should be 1", 1, lists.get(0, 0));
+        assertEquals("Second neighbor of 0 should be 2", 2, lists.get(0, 1));
+        assertEquals("First neighbor of 3 should be 0", 0, lists.get(3, 0));
+        assertEquals("Second neighbor of 3 should be 1", 1, lists.get(3, 1));
+    }
+
+    @Test
+    public void testKLimitedBySize() {
+        assertEquals("K should be limited to n-1", 3, new NeighborLists(randomMatrix(4, 2), 10).getK());
+        assertEquals("K should be 0 for a single element", 0, new NeighborLists(new float[][]{{0}}).getK());
+        assertEquals("Empty matrix should give empty lists", 0, new NeighborLists(new float[][]{}).size());
+    }
+
+    @Test
+    public void testLargeMatrixParallelBuild() {
+        float[][] matrix = randomMatrix(300, 3);
+        NeighborLists lists = new NeighborLists(matrix);
+        assertEquals("Default K should be used", NeighborLists.DEFAULT_K, lists.getK());
+        assertSortedNearest(matrix, lists);
+    }
+
+    @Test
+    public void testSharedByAlgorithm() {
+        GreedyAlgorithm algorithm = new GreedyAlgorithm(randomMatrix(10, 4));
+        assertSame("Neighbor lists should be built only once", algorithm.getNeighborLists(), algorithm.getNeighborLists());
+    }
+}
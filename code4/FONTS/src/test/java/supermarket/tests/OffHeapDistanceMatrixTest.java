@@ -0,0 +1,90 @@
+package supermarket.tests;
+
+import org.junit.Test;
+import supermarket.domain.algorithm.AbstractAlgorithm;
+import supermarket.domain.algorithm.AlgorithmFactory;
+import supermarket.domain.algorithm.OffHeapDistanceMatrix;
+import supermarket.tuples.AlgorithmType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+import static supermarket.tests.TestMatrices.randomPointsMatrix;
+
+public class OffHeapDistanceMatrixTest {
+    private static void copy(float[][] values, OffHeapDistanceMatrix matrix) {
+        for (int i = 0; i < values.length; ++i) {
+            for (int j = 0; j < values.length; ++j) matrix.set(i, j, values[i][j]);
+        }
+    }
+
+    @Test
+    public void testAllocate() {
+        try (OffHeapDistanceMatrix matrix = OffHeapDistanceMatrix.allocate(3)) {
+            assertEquals("Size should be the given one", 3, matrix.size());
+            assertEquals("New matrix should have all values set to 0", 0, matrix.get(1, 2), 0);
+            matrix.set(1, 2, 4.5f);
+            assertEquals("Value should be changed", 4.5f, matrix.get(1, 2), 0);
+            assertEquals("Other values should not change", 0, matrix.get(2, 1), 0);
+            assertFalse("Matrix should not be symmetric", matrix.isSymmetric());
+            matrix.set(2, 1, 4.5f);
+            assertTrue("Matrix should be symmetric again", matrix.isSymmetric());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosed() {
+        OffHeapDistanceMatrix matrix = OffHeapDistanceMatrix.allocate(2);
+        matrix.close();
+        matrix.get(0, 1);
+    }
+
+    @Test
+    public void testFileRoundTrip() throws IOException {
+        Path file = Files.createTempFile("distances", ".bin");
+        try {
+            float[][] values = randomPointsMatrix(20, 1);
+            try (OffHeapDistanceMatrix matrix = OffHeapDistanceMatrix.create(file, 20)) {
+                copy(values, matrix);
+                matrix.force();
+            }
+            assertEquals("File should store 4 bytes per value", 20 * 20 * 4, Files.size(file));
+            try (OffHeapDistanceMatrix matrix = OffHeapDistanceMatrix.map(file)) {
+                assertEquals("Size should be given by the file", 20, matrix.size());
+                assertTrue("Symmetry should be checked when the file is mapped", matrix.isSymmetric());
+                for (int i = 0; i < 20; ++i) {
+                    for (int j = 0; j < 20; ++j) assertEquals("Values should be read from the file", values[i][j], matrix.get(i, j), 0);
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testMapInvalidFile() throws IOException {
+        Path file = Files.createTempFile("distances", ".bin");
+        try {
+            Files.write(file, new byte[12]);
+            OffHeapDistanceMatrix.map(file).close();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testSameResultsAsHeapMatrix() {
+        float[][] values = randomPointsMatrix(150, 2);
+        try (OffHeapDistanceMatrix matrix = OffHeapDistanceMatrix.allocate(150)) {
+            copy(values, matrix);
+            for (AlgorithmType type : new AlgorithmType[]{AlgorithmType.GREEDY, AlgorithmType.KRUSKAL_APPROX, AlgorithmType.CHRISTOFIDES}) {
+                AbstractAlgorithm offHeap = AlgorithmFactory.createAlgorithmShared(type, matrix);
+                AbstractAlgorithm heap = AlgorithmFactory.createAlgorithm(type, values);
+                assertArrayEquals("Off-heap matrix should give the same distribution with " + type,
+                        heap.calculateDistribution(), offHeap.calculateDistribution());
+            }
+        }
+    }
+}
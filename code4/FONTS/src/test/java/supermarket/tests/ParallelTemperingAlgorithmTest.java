@@ -0,0 +1,76 @@
+package supermarket.tests;
+
+import org.junit.Test;
+import supermarket.domain.algorithm.AbstractAlgorithm;
+import supermarket.domain.algorithm.GreedyAlgorithm;
+import supermarket.domain.algorithm.ParallelTemperingAlgorithm;
+import supermarket.tuples.AlgorithmType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static supermarket.tests.TestMatrices.assertPermutation;
+import static supermarket.tests.TestMatrices.randomPointsMatrix;
+
+public class ParallelTemperingAlgorithmTest extends MetaheuristicAlgorithmTestBase {
+    AbstractAlgorithm createAlgorithm(float[][] matrix) {
+        return new ParallelTemperingAlgorithm(matrix);
+    }
+
+    AlgorithmType getExpectedType() {
+        return AlgorithmType.PARALLEL_TEMPERING;
+    }
+
+    List<List<String>> getDeterministicParameters() {
+        return List.of(List.of("4", "5", "20"));
+    }
+
+    List<String> getSlowParameters() {
+        return List.of("3", "10", "1000000");
+    }
+
+    List<String> getInvalidParameters() {
+        return List.of("1", "x", "0");
+    }
+
+    int getParameterCount() {
+        return 3;
+    }
+
+    @Test
+    public void testBetterThanGreedy() {
+        //the cold replicas must improve good distributions, not only random ones
+        for (int seed = 0; seed < 2; ++seed) {
+            float[][] matrix = randomPointsMatrix(200, seed);
+            ParallelTemperingAlgorithm algorithm = new ParallelTemperingAlgorithm(matrix);
+            List<Double> costs = new ArrayList<>();
+            int[] result = algorithm.calculateDistribution(null, null, (cost, iterations) -> costs.add(cost));
+            assertPermutation(200, result);
+            GreedyAlgorithm greedy = new GreedyAlgorithm(matrix);
+            assertTrue("Parallel tempering should be better than greedy",
+                    algorithm.calculateCycleCost(result) < 0.9 * greedy.calculateCycleCost(greedy.calculateDistribution()));
+            assertTrue("Cold replicas should keep improving after the first round", costs.getLast() < costs.getFirst());
+        }
+    }
+
+    @Test
+    public void testLargeDistances() {
+        //unrelated products have huge distances, which must not hide the small ones in the reported cost
+        int n = 40;
+        Random random = new Random(3);
+        float[][] matrix = new float[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = i + 1; j < n; ++j) {
+                matrix[i][j] = matrix[j][i] = random.nextInt(4) == 0 ? 1e9f : 1 + random.nextFloat();
+            }
+        }
+        ParallelTemperingAlgorithm algorithm = new ParallelTemperingAlgorithm(matrix);
+        List<Double> costs = new ArrayList<>();
+        int[] result = algorithm.calculateDistribution(null, null, (cost, iterations) -> costs.add(cost));
+        double cost = 0;
+        for (int i = 0; i < n; ++i) cost += matrix[result[i]][result[(i + 1) % n]];
+        assertEquals("Reported cost should be the exact cost of the distribution", cost, costs.getLast(), 1e-3);
+    }
+}
@@ -0,0 +1,99 @@
+package supermarket.tests;
+
+import org.junit.Test;
+import supermarket.domain.algorithm.CancellationToken;
+import supermarket.domain.algorithm.GreedyAlgorithm;
+import supermarket.domain.algorithm.HeldKarpAlgorithm;
+import supermarket.domain.algorithm.KruskalApproxAlgorithm;
+import supermarket.domain.algorithm.PortfolioAlgorithm;
+import supermarket.tuples.AlgorithmType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static supermarket.tests.TestMatrices.assertPermutation;
+import static supermarket.tests.TestMatrices.randomPointsMatrix;
+
+public class PortfolioAlgorithmTest {
+    @Test
+    public void testGetType() {
+        PortfolioAlgorithm algorithm = new PortfolioAlgorithm(new float[][]{{0}});
+        assertEquals("Algorithm type should be PORTFOLIO", AlgorithmType.PORTFOLIO, algorithm.getType());
+        assertNull("There should be no winner before calculating", algorithm.getWinner());
+    }
+
+    @Test
+    public void testOptimalSmallMatrices() {
+        for (int seed = 0; seed < 3; ++seed) {
+            float[][] matrix = randomPointsMatrix(12, seed);
+            PortfolioAlgorithm algorithm = new PortfolioAlgorithm(matrix);
+            int[] result = algorithm.calculateDistribution();
+            assertPermutation(12, result);
+            HeldKarpAlgorithm exact = new HeldKarpAlgorithm(matrix);
+            float optimal = exact.calculateCycleCost(exact.calculateDistribution());
+            assertEquals("Cost should be optimal when the exact algorithm can be used", optimal, algorithm.calculateCycleCost(result), 1e-3);
+            assertNotNull("Winner should be reported", algorithm.getWinner());
+        }
+    }
+
+    @Test
+    public void testNotWorseThanMembersWithinBudget() {
+        float[][] matrix = randomPointsMatrix(300, 7);
+        PortfolioAlgorithm algorithm = new PortfolioAlgorithm(matrix);
+        algorithm.setParameters(new ArrayList<>(List.of("300")));
+        long start = System.nanoTime();
+        int[] result = algorithm.calculateDistribution();
+        assertTrue("Portfolio should stop soon after the budget", System.nanoTime() - start < 10_000_000_000L);
+        assertPermutation(300, result);
+        assertNotEquals("Exact algorithm can't be used with this size", AlgorithmType.EXACT_DP, algorithm.getWinner());
+
+        GreedyAlgorithm greedy = new GreedyAlgorithm(matrix);
+        KruskalApproxAlgorithm kruskal = new KruskalApproxAlgorithm(matrix);
+        double cost = algorithm.calculateCycleCost(result);
+        assertTrue("Portfolio should not be worse than greedy", cost <= greedy.calculateCycleCost(greedy.calculateDistribution()) + 1e-3);
+        assertTrue("Portfolio should not be worse than kruskal", cost <= kruskal.calculateCycleCost(kruskal.calculateDistribution()) + 1e-3);
+    }
+
+    @Test
+    public void testCancelled() {
+        float[][] matrix = randomPointsMatrix(200, 3);
+        PortfolioAlgorithm algorithm = new PortfolioAlgorithm(matrix);
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        long[] iterations = new long[1];
+        int[] result = algorithm.calculateDistribution(null, token, (cost, it) -> iterations[0] = it);
+        assertPermutation(200, result);
+        assertTrue("Progress of the algorithms should be reported", iterations[0] > 0);
+    }
+
+    @Test
+    public void testWaitsForAlgorithms() {
+        PortfolioAlgorithm algorithm = new PortfolioAlgorithm(randomPointsMatrix(200, 5));
+        algorithm.setParameters(new ArrayList<>(List.of("50")));
+        assertPermutation(200, algorithm.calculateDistribution());
+        //the threads themselves may still be exiting, but none of them can be running an algorithm
+        for (Map.Entry<Thread, StackTraceElement[]> thread : Thread.getAllStackTraces().entrySet()) {
+            if (!thread.getKey().getName().startsWith("portfolio-")) continue;
+            for (StackTraceElement frame : thread.getValue()) {
+                assertFalse("No algorithm should outlive the calculation", frame.getClassName().startsWith("supermarket."));
+            }
+        }
+    }
+
+    @Test
+    public void testTrivialMatrices() {
+        assertArrayEquals("Empty matrix should give empty distribution", new int[]{}, new PortfolioAlgorithm(new float[][]{}).calculateDistribution());
+        assertArrayEquals("Single element matrix should give {0}", new int[]{0}, new PortfolioAlgorithm(new float[][]{{0}}).calculateDistribution());
+    }
+
+    @Test
+    public void testInvalidParameters() {
+        PortfolioAlgorithm algorithm = new PortfolioAlgorithm(new float[][]{{0, 1}, {1, 0}});
+        algorithm.setParameters(new ArrayList<>(List.of("-5")));
+        algorithm.setParameters(new ArrayList<>(List.of("x")));
+        algorithm.setParameters(new ArrayList<>());
+        assertPermutation(2, algorithm.calculateDistribution());
+    }
+}
@@ -3,6 +3,8 @@ package supermarket.tests;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
+import supermarket.domain.algorithm.OffHeapDistanceMatrix;
+import supermarket.domain.algorithm.SymmetricDistanceMatrix;
 import supermarket.domain.controllers.ProductController;
 import supermarket.domain.relations.Relations;
 import supermarket.tuples.ProductInfo;
@@ -41,6 +43,44 @@ public class RelationsTest {
         relations = new Relations(mockProductController, relationMatrix, barcodes);
     }
 
+    @Test
+    public void testExportRelationMatrixOffHeap() {
+        try (OffHeapDistanceMatrix resultMatrix = OffHeapDistanceMatrix.allocate(barcodes.size())) {
+            relations.exportRelationMatrix(barcodes, resultMatrix);
+            for (int i = 0; i < barcodes.size(); i++) {
+                for (int j = 0; j < barcodes.size(); j++) {
+                    assertEquals("Exported matrix should have the same values as getRelationMatrix",
+                            relationMatrix[i][j], resultMatrix.get(i, j), 1e-6);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testExportRelationMatrixSymmetric() {
+        assertTrue("Relations read from a symmetric matrix should be symmetric", relations.isSymmetric());
+        SymmetricDistanceMatrix resultMatrix = new SymmetricDistanceMatrix(barcodes.size());
+        relations.exportRelationMatrix(barcodes, resultMatrix);
+        for (int i = 0; i < barcodes.size(); i++) {
+            for (int j = 0; j < barcodes.size(); j++) {
+                assertEquals("Exported matrix should have the same values as getRelationMatrix",
+                        relationMatrix[i][j], resultMatrix.get(i, j), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testAsymmetricRelations() {
+        float[][] asymmetricMatrix = {
+                {0, 0.5f},
+                {0.2f, 0}
+        };
+        relations.readMatrix(asymmetricMatrix, new ArrayList<>(List.of(0, 1)));
+        assertFalse("Relations read from an asymmetric matrix should not be symmetric", relations.isSymmetric());
+        assertThrows(IllegalStateException.class,
+                () -> relations.exportRelationMatrix(new ArrayList<>(List.of(0, 1)), new SymmetricDistanceMatrix(2)));
+    }
+
     @Test
     public void testGetRelationMatrixWithArrayList() {
         float[][] resultMatrix = relations.getRelationMatrix(barcodes);
@@ -2,11 +2,18 @@ package supermarket.tests;
 
 import org.junit.Test;
 import supermarket.domain.algorithm.AbstractAlgorithm;
+import supermarket.domain.algorithm.HeldKarpAlgorithm;
 import supermarket.domain.algorithm.SimulatedAnnealingAlgorithm;
 import supermarket.tuples.AlgorithmParameter;
 import supermarket.tuples.AlgorithmType;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.*;
 
@@ -141,4 +148,289 @@ public class SimulatedAnnealingAlgorithmTest {
             assertTrue("All indices should be used", isUsed);
         }
     }
+
+    @Test
+    public void testSolutionValidityLargeMatrix() {
+        //in-place moves must keep the solution a permutation
+        int n = 60;
+        float[][] matrix = new float[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                if (i != j) matrix[i][j] = (i * 31 + j * 17) % 23 + 1;
+            }
+        }
+        SimulatedAnnealingAlgorithm algorithm = new SimulatedAnnealingAlgorithm(matrix);
+        int[] solution = algorithm.calculateDistribution();
+        assertEquals("Final distribution length should match matrix dimension", n, solution.length);
+        boolean[] used = new boolean[n];
+        for (int index : solution) {
+            assertFalse("Each index should appear only once", used[index]);
+            used[index] = true;
+        }
+    }
+
+    @Test
+    public void testMultipleChains() {
+        int n = 40;
+        float[][] matrix = new float[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                if (i != j) matrix[i][j] = (i * 13 + j * 7) % 19 + 1;
+            }
+        }
+        SimulatedAnnealingAlgorithm singleChain = new SimulatedAnnealingAlgorithm(matrix);
+        double singleCost = singleChain.calculateCycleCost(singleChain.calculateDistribution());
+
+        SimulatedAnnealingAlgorithm multipleChains = new SimulatedAnnealingAlgorithm(matrix);
+        multipleChains.setParameters(new ArrayList<>(List.of("1000", "0.9", "600", "4", "2")));
+        int[] solution = multipleChains.calculateDistribution();
+        assertArrayEquals("Results should be deterministic", solution, multipleChains.calculateDistribution());
+        //the first chain uses the same seed as the single chain run
+        assertTrue("Multiple chains should not be worse than a single chain",
+                multipleChains.calculateCycleCost(solution) <= singleCost + 1e-5);
+    }
+
+    @Test
+    public void testTimeBudget() {
+        int n = 60;
+        float[][] matrix = new float[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                if (i != j) matrix[i][j] = (i * 13 + j * 7) % 19 + 1;
+            }
+        }
+        SimulatedAnnealingAlgorithm algorithm = new SimulatedAnnealingAlgorithm(matrix);
+        //very slow cooling, it would take minutes without the budget
+        algorithm.setParameters(new ArrayList<>(List.of("1000", "0.9999", "600", "2", "2")));
+        List<Double> costs = new ArrayList<>();
+        long start = System.nanoTime();
+        int[] solution = algorithm.calculateDistribution(Duration.ofMillis(200), null, (cost, iterations) -> {
+            synchronized (costs) {
+                costs.add(cost);
+            }
+        });
+        assertTrue("Algorithm should stop soon after the budget", System.nanoTime() - start < 10_000_000_000L);
+
+        boolean[] used = new boolean[n];
+        for (int index : solution) {
+            assertFalse("Each index should appear only once", used[index]);
+            used[index] = true;
+        }
+        assertFalse("Progress should be reported", costs.isEmpty());
+        for (int i = 1; i < costs.size(); ++i) {
+            assertTrue("Reported best cost should never increase", costs.get(i) <= costs.get(i - 1));
+        }
+        assertTrue("Result should not be worse than the reported best cost",
+                algorithm.calculateCycleCost(solution) <= costs.getLast() + 1e-3);
+    }
+
+    @Test
+    public void testSetParametersConfiguration() {
+        SimulatedAnnealingAlgorithm algorithm = new SimulatedAnnealingAlgorithm(new float[][]{{0}});
+        algorithm.setParameters(new ArrayList<>(List.of("500", "0.8", "300", "2", "1")));
+        assertEquals("Configuration should match the given parameters",
+                new SimulatedAnnealingAlgorithm.Configuration(500, 0.8, 300, 2, 1), algorithm.getConfiguration());
+
+        algorithm.setParameters(new ArrayList<>(List.of("1", "2", "-3", "x", "0")));
+        assertEquals("Invalid parameters should use default values",
+                SimulatedAnnealingAlgorithm.Configuration.DEFAULT, algorithm.getConfiguration());
+    }
+
+    @Test
+    public void testSetParametersMoves() {
+        SimulatedAnnealingAlgorithm algorithm = new SimulatedAnnealingAlgorithm(new float[][]{{0}});
+        algorithm.setParameters(new ArrayList<>(List.of("500", "0.8", "300", "2", "1", "0,1,2,3", "0.25")));
+        assertEquals("Move weights should match the given parameter",
+                new SimulatedAnnealingAlgorithm.MoveMix(0, 1, 2, 3), algorithm.getConfiguration().moves());
+        assertEquals("Candidate bias should match the given parameter", 0.25, algorithm.getConfiguration().candidateBias(), 0);
+
+        algorithm.setParameters(new ArrayList<>(List.of("500", "0.8", "300", "2", "1", "0,0,0,0", "2")));
+        assertEquals("Invalid move weights should use default value",
+                SimulatedAnnealingAlgorithm.MoveMix.DEFAULT, algorithm.getConfiguration().moves());
+        assertEquals("Invalid candidate bias should use default value",
+                SimulatedAnnealingAlgorithm.Configuration.DEFAULT_CANDIDATE_BIAS, algorithm.getConfiguration().candidateBias(), 0);
+    }
+
+    @Test
+    public void testMoveOperators() {
+        int n = 25;
+        float[][] symmetric = new float[n][n];
+        float[][] asymmetric = new float[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                if (i != j) {
+                    symmetric[i][j] = (Math.min(i, j) * 13 + Math.max(i, j) * 7) % 19 + 1;
+                    asymmetric[i][j] = (i * 13 + j * 7) % 19 + 1;
+                }
+            }
+        }
+        SimulatedAnnealingAlgorithm.MoveMix[] mixes = {
+                new SimulatedAnnealingAlgorithm.MoveMix(1, 0, 0, 0),
+                new SimulatedAnnealingAlgorithm.MoveMix(0, 1, 0, 0), //only swaps with the asymmetric matrix
+                new SimulatedAnnealingAlgorithm.MoveMix(0, 0, 1, 0),
+                new SimulatedAnnealingAlgorithm.MoveMix(0, 0, 0, 1),
+                SimulatedAnnealingAlgorithm.MoveMix.DEFAULT
+        };
+        for (float[][] matrix : List.of(symmetric, asymmetric)) {
+            for (SimulatedAnnealingAlgorithm.MoveMix mix : mixes) {
+                for (double bias : new double[] {0, 1}) {
+                    SimulatedAnnealingAlgorithm algorithm = new SimulatedAnnealingAlgorithm(matrix,
+                            new SimulatedAnnealingAlgorithm.Configuration(1000, 0.8, 200, 1, 1, mix, bias));
+                    List<Double> costs = new ArrayList<>();
+                    int[] solution = algorithm.calculateDistribution(null, null, (cost, iterations) -> costs.add(cost));
+
+                    boolean[] used = new boolean[n];
+                    for (int index : solution) {
+                        assertFalse("Each index should appear only once with " + mix, used[index]);
+                        used[index] = true;
+                    }
+                    //the reported cost is accumulated from the cost differences of the moves
+                    assertEquals("Cost differences of the moves should be exact with " + mix,
+                            algorithm.calculateCycleCost(solution), costs.getLast(), 1e-3);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLargeDistances() {
+        //unrelated products have huge distances, which must not hide the small ones in the reported cost
+        int n = 40;
+        Random random = new Random(3);
+        float[][] matrix = new float[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = i + 1; j < n; ++j) {
+                matrix[i][j] = matrix[j][i] = random.nextInt(4) == 0 ? 1e9f : 1 + random.nextFloat();
+            }
+        }
+        SimulatedAnnealingAlgorithm algorithm = new SimulatedAnnealingAlgorithm(matrix,
+                new SimulatedAnnealingAlgorithm.Configuration(1000, 0.8, 200, 1, 1));
+        List<Double> costs = new ArrayList<>();
+        int[] solution = algorithm.calculateDistribution(null, null, (cost, iterations) -> costs.add(cost));
+        double cost = 0;
+        for (int i = 0; i < n; ++i) cost += matrix[solution[i]][solution[(i + 1) % n]];
+        assertEquals("Reported cost should be the exact cost of the distribution", cost, costs.getLast(), 1e-3);
+    }
+
+    @Test
+    public void testSetParametersSchedule() {
+        SimulatedAnnealingAlgorithm algorithm = new SimulatedAnnealingAlgorithm(new float[][]{{0}});
+        algorithm.setParameters(new ArrayList<>(List.of("500", "0.8", "300", "2", "1", "1,2,1,1", "0.5", "Fixed", "0.3", "5", "10")));
+        assertEquals("Cooling schedule should match the given parameters",
+                new SimulatedAnnealingAlgorithm.CoolingSchedule(false, 0.3, 5, 10), algorithm.getConfiguration().schedule());
+
+        algorithm.setParameters(new ArrayList<>(List.of("500", "0.8", "300", "2", "1", "1,2,1,1", "0.5", "Slow", "1", "-1", "x")));
+        assertEquals("Invalid cooling schedule parameters should use default values",
+                SimulatedAnnealingAlgorithm.CoolingSchedule.FIXED, algorithm.getConfiguration().schedule());
+
+        algorithm.setParameters(new ArrayList<>(List.of("500", "0.8", "300", "2", "1", "1,2,1,1", "0.5", "Adaptive", "0.3", "0", "10")));
+        assertEquals("Adaptive cooling schedule should use the default plateau levels instead of 0",
+                new SimulatedAnnealingAlgorithm.CoolingSchedule(true, 0.3, 20, 10), algorithm.getConfiguration().schedule());
+
+        algorithm.setParameters(new ArrayList<>(List.of("500", "0.8", "300", "2", "1", "1,2,1,1", "0.5")));
+        assertEquals("Missing cooling schedule parameters should use the fixed schedule",
+                SimulatedAnnealingAlgorithm.CoolingSchedule.FIXED, algorithm.getConfiguration().schedule());
+    }
+
+    @Test
+    public void testAdaptiveScheduleSmallShelf() {
+        int n = 9;
+        float[][] matrix = new float[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                if (i != j) matrix[i][j] = (Math.min(i, j) * 13 + Math.max(i, j) * 7) % 19 + 1;
+            }
+        }
+        HeldKarpAlgorithm exact = new HeldKarpAlgorithm(matrix);
+        double optimum = exact.calculateCycleCost(exact.calculateDistribution());
+
+        SimulatedAnnealingAlgorithm algorithm = new SimulatedAnnealingAlgorithm(matrix, new SimulatedAnnealingAlgorithm.Configuration(
+                1000, 0.9, 600, 1, 1, SimulatedAnnealingAlgorithm.MoveMix.DEFAULT, 0.5, SimulatedAnnealingAlgorithm.CoolingSchedule.ADAPTIVE));
+        List<Long> levels = new ArrayList<>();
+        int[] solution = algorithm.calculateDistribution(null, null, (cost, iterations) -> levels.add(iterations));
+        assertEquals("Small shelf should reach the optimum", optimum, algorithm.calculateCycleCost(solution), 1e-3);
+        //the solution converges in a few levels, the plateau stops the chain soon after
+        assertTrue("Chain should stop after the plateau", levels.size() < 200);
+    }
+
+    @Test
+    public void testPlateauLevels() {
+        int n = 30;
+        float[][] matrix = new float[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                if (i != j) matrix[i][j] = 1;
+            }
+        }
+        //all distributions have the same cost, so the best one never improves (and no worse neighbor is sampled)
+        for (SimulatedAnnealingAlgorithm.CoolingSchedule schedule : List.of(
+                new SimulatedAnnealingAlgorithm.CoolingSchedule(true, 0.1, 7, 10),
+                new SimulatedAnnealingAlgorithm.CoolingSchedule(false, 0.1, 7, 10))) {
+            SimulatedAnnealingAlgorithm algorithm = new SimulatedAnnealingAlgorithm(matrix, new SimulatedAnnealingAlgorithm.Configuration(
+                    1000, 0.9, 100, 1, 1, SimulatedAnnealingAlgorithm.MoveMix.DEFAULT, 0.5, schedule));
+            List<Double> costs = new ArrayList<>();
+            algorithm.calculateDistribution(null, null, (cost, iterations) -> costs.add(cost));
+            assertEquals("Chain should stop after the plateau levels", 7, costs.size());
+        }
+    }
+
+    @Test
+    public void testFixedScheduleWithoutPlateau() {
+        int n = 30;
+        float[][] matrix = new float[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                if (i != j) matrix[i][j] = 1;
+            }
+        }
+        SimulatedAnnealingAlgorithm algorithm = new SimulatedAnnealingAlgorithm(matrix,
+                new SimulatedAnnealingAlgorithm.Configuration(1000, 0.9, 100, 1, 1));
+        assertEquals("5 parameter configuration should use the fixed schedule",
+                SimulatedAnnealingAlgorithm.CoolingSchedule.FIXED, algorithm.getConfiguration().schedule());
+        List<Double> costs = new ArrayList<>();
+        algorithm.calculateDistribution(null, null, (cost, iterations) -> costs.add(cost));
+        //without plateau stop, the chain cools from the initial temperature down to 1
+        assertEquals("Chain should run all the temperature levels", (int) Math.ceil(Math.log(1000) / -Math.log(0.9)), costs.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidConfiguration() {
+        new SimulatedAnnealingAlgorithm.Configuration(1000, 1.5, 600, 1, 1);
+    }
+
+    @Test
+    public void testConcurrentInstances() throws Exception {
+        int n = 30;
+        float[][] matrix = new float[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                if (i != j) matrix[i][j] = (i * 11 + j * 5) % 17 + 1;
+            }
+        }
+        List<SimulatedAnnealingAlgorithm.Configuration> configurations = new ArrayList<>();
+        for (int c = 0; c < 8; ++c) {
+            configurations.add(new SimulatedAnnealingAlgorithm.Configuration(100 + 150 * c, 0.8 + 0.02 * c, 50 + 25 * c, 1 + c % 3, 2));
+        }
+        //expected results, calculated one after the other
+        List<int[]> expected = new ArrayList<>();
+        for (SimulatedAnnealingAlgorithm.Configuration configuration : configurations) {
+            expected.add(new SimulatedAnnealingAlgorithm(matrix, configuration).calculateDistribution());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(configurations.size());
+        try {
+            for (int round = 0; round < 3; ++round) {
+                List<Future<int[]>> results = new ArrayList<>();
+                for (SimulatedAnnealingAlgorithm.Configuration configuration : configurations) {
+                    results.add(executor.submit(() -> new SimulatedAnnealingAlgorithm(matrix, configuration).calculateDistribution()));
+                }
+                for (int c = 0; c < configurations.size(); ++c) {
+                    assertArrayEquals("Concurrent runs should not interfere with each other",
+                            expected.get(c), results.get(c).get());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+package supermarket.tests;
+
+import org.junit.Test;
+import supermarket.domain.algorithm.AbstractAlgorithm;
+import supermarket.domain.algorithm.AlgorithmFactory;
+import supermarket.domain.algorithm.DistanceMatrix;
+import supermarket.domain.algorithm.GraphUtils;
+import supermarket.domain.algorithm.SymmetricDistanceMatrix;
+import supermarket.tuples.AlgorithmType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SymmetricDistanceMatrixTest {
+    @Test
+    public void testCopyOfArray() {
+        float[][] values = {
+                {0, 1, 2},
+                {1, 0, 4},
+                {2, 4, 0}
+        };
+        SymmetricDistanceMatrix matrix = new SymmetricDistanceMatrix(values);
+        assertEquals("Size should be the number of rows", 3, matrix.size());
+        for (int i = 0; i < 3; ++i) {
+            for (int j = 0; j < 3; ++j) {
+                assertEquals("Values should be copied", values[i][j], matrix.get(i, j), 0);
+            }
+        }
+        assertTrue("Matrix is always symmetric", matrix.isSymmetric());
+    }
+
+    @Test
+    public void testSetBothDirections() {
+        SymmetricDistanceMatrix matrix = new SymmetricDistanceMatrix(4);
+        assertEquals("New matrix should have all values set to 0", 0, matrix.get(2, 3), 0);
+        matrix.set(3, 1, 7.5f);
+        assertEquals("Value should be changed in both directions", 7.5f, matrix.get(1, 3), 0);
+        assertEquals("Value should be changed in both directions", 7.5f, matrix.get(3, 1), 0);
+        matrix.set(2, 2, 1);
+        assertEquals("Diagonal can be changed", 1, matrix.get(2, 2), 0);
+        assertEquals("Other values should not change", 0, matrix.get(1, 2), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAsymmetricMatrix() {
+        new SymmetricDistanceMatrix(new float[][]{{0, 2}, {1, 0}});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonSquareMatrix() {
+        new SymmetricDistanceMatrix(new float[][]{{0, 1, 2}, {1, 0, 2}, {2, 2}});
+    }
+
+    @Test
+    public void testInvertMatrixValues() {
+        SymmetricDistanceMatrix matrix = new SymmetricDistanceMatrix(new float[][]{{0, 0.5f}, {0.5f, 0}});
+        GraphUtils.invertMatrixValues(matrix);
+        assertEquals("Values should be inverted", 2, matrix.get(1, 0), 1e-6);
+        assertEquals("Zero values should become \"infinity\"", 1e9f, matrix.get(0, 0), 0);
+    }
+
+    @Test
+    public void testSameResultsAsFlatMatrix() {
+        int n = 30;
+        Random random = new Random(7);
+        float[][] values = new float[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = i + 1; j < n; ++j) {
+                values[i][j] = values[j][i] = 1 + random.nextInt(100);
+            }
+        }
+        DistanceMatrix flat = DistanceMatrix.of(values);
+        DistanceMatrix packed = new SymmetricDistanceMatrix(values);
+        for (AlgorithmType type : new AlgorithmType[] {AlgorithmType.GREEDY, AlgorithmType.KRUSKAL_APPROX,
+                AlgorithmType.CHRISTOFIDES, AlgorithmType.LIN_KERNIGHAN}) {
+            AbstractAlgorithm flatAlgorithm = AlgorithmFactory.createAlgorithmShared(type, flat);
+            AbstractAlgorithm packedAlgorithm = AlgorithmFactory.createAlgorithmShared(type, packed);
+            assertEquals("Both storages should be usable by " + type, flatAlgorithm.canUseAlgorithm(), packedAlgorithm.canUseAlgorithm());
+            assertArrayEquals("Both storages should give the same distribution with " + type,
+                    flatAlgorithm.calculateDistribution(), packedAlgorithm.calculateDistribution());
+        }
+    }
+
+    @Test
+    public void testGreedyAllStartingNodes() {
+        //large enough for many rows to be scanned after all the neighbors in the lists have been visited
+        int n = 200;
+        Random random = new Random(8);
+        float[][] values = new float[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = i + 1; j < n; ++j) {
+                values[i][j] = values[j][i] = 1 + random.nextInt(1000);
+            }
+        }
+        AbstractAlgorithm flat = AlgorithmFactory.createAlgorithmShared(AlgorithmType.GREEDY, DistanceMatrix.of(values));
+        AbstractAlgorithm packed = AlgorithmFactory.createAlgorithmShared(AlgorithmType.GREEDY, new SymmetricDistanceMatrix(values));
+        flat.setParameters(new ArrayList<>(List.of("true")));
+        packed.setParameters(new ArrayList<>(List.of("true")));
+        assertArrayEquals("Both storages should give the same greedy distribution",
+                flat.calculateDistribution(), packed.calculateDistribution());
+    }
+
+    @Test
+    public void testNegativeValues() {
+        SymmetricDistanceMatrix matrix = new SymmetricDistanceMatrix(20);
+        for (int i = 0; i < 20; ++i) {
+            for (int j = i + 1; j < 20; ++j) matrix.set(i, j, 1);
+        }
+        AbstractAlgorithm algorithm = AlgorithmFactory.createAlgorithmShared(AlgorithmType.GREEDY, matrix);
+        assertTrue("Matrix without negative values should be usable", algorithm.canUseAlgorithm());
+        matrix.set(17, 3, -1);
+        assertFalse("Matrix with a negative value should not be usable", algorithm.canUseAlgorithm());
+    }
+}
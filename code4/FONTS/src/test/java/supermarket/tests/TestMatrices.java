@@ -0,0 +1,62 @@
+package supermarket.tests;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Matrices and assertions shared by the tests of the algorithms.
+ */
+public final class TestMatrices {
+    private TestMatrices() {
+    }
+
+    /**
+     * @return Euclidean distances between n random points of a 100x100 square.
+     */
+    public static float[][] randomPointsMatrix(int n, long seed) {
+        Random random = new Random(seed);
+        float[] x = new float[n], y = new float[n];
+        for (int i = 0; i < n; ++i) {
+            x[i] = random.nextFloat() * 100;
+            y[i] = random.nextFloat() * 100;
+        }
+        return distances(x, y);
+    }
+
+    /**
+     * @return Euclidean distances between n random points with integer coordinates below gridSize (so there are many ties).
+     */
+    public static float[][] randomPointsMatrix(int n, long seed, int gridSize) {
+        Random random = new Random(seed);
+        float[] x = new float[n], y = new float[n];
+        for (int i = 0; i < n; ++i) {
+            x[i] = random.nextInt(gridSize);
+            y[i] = random.nextInt(gridSize);
+        }
+        return distances(x, y);
+    }
+
+    private static float[][] distances(float[] x, float[] y) {
+        int n = x.length;
+        float[][] matrix = new float[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                matrix[i][j] = (float) Math.hypot(x[i] - x[j], y[i] - y[j]);
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Asserts that the distribution contains each index of a matrix of dimension n exactly once.
+     */
+    public static void assertPermutation(int n, int[] distribution) {
+        assertEquals("Distribution length should match matrix dimension", n, distribution.length);
+        boolean[] used = new boolean[n];
+        for (int index : distribution) {
+            assertFalse("Each index should appear only once", used[index]);
+            used[index] = true;
+        }
+    }
+}